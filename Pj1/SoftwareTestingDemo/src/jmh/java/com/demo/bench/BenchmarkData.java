@@ -0,0 +1,223 @@
+package com.demo.bench;
+
+import com.demo.dao.MessageDao;
+import com.demo.dao.OrderDao;
+import com.demo.dao.UserDao;
+import com.demo.dao.VenueDao;
+import com.demo.entity.Message;
+import com.demo.entity.Order;
+import com.demo.entity.User;
+import com.demo.entity.Venue;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基准测试用的内存数据表
+ * 数据量可用系统属性bench.users、bench.venues、bench.orders、bench.messages修改，
+ * 默认10k用户、500场馆、1M订单、50k留言。
+ * DAO用动态代理实现，只支持被测方法用到的查询，按索引查找，其他方法抛UnsupportedOperationException。
+ */
+public class BenchmarkData {
+    public static final int HOURS_PER_DAY = 12;
+    public static final int OPEN_HOUR = 8;
+    public static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    private final Random random = new Random(42);
+    private final List<User> users = new ArrayList<>();
+    private final Map<String, User> usersByID = new HashMap<>();
+    private final List<Venue> venues = new ArrayList<>();
+    private final Map<String, Venue> venuesByName = new HashMap<>();
+    /**
+     * 每个场馆的订单按开始时间索引
+     */
+    private final Map<Integer, NavigableMap<LocalDateTime, Order>> ordersByVenue = new HashMap<>();
+    private final List<Order> orders = new ArrayList<>();
+    private final List<Message> messages = new ArrayList<>();
+    private final AtomicInteger orderIDs = new AtomicInteger();
+    private final int days;
+
+    public BenchmarkData() {
+        int userCount = Integer.getInteger("bench.users", 10_000);
+        int venueCount = Integer.getInteger("bench.venues", 500);
+        int orderCount = Integer.getInteger("bench.orders", 1_000_000);
+        int messageCount = Integer.getInteger("bench.messages", 50_000);
+
+        for (int i = 1; i <= userCount; i++) {
+            User user = new User(i, "user" + i, "name" + i, "password" + i, "user" + i + "@demo.com", "1380000" + i, 0, "");
+            users.add(user);
+            usersByID.put(user.getUserID(), user);
+        }
+        for (int i = 1; i <= venueCount; i++) {
+            Venue venue = new Venue(i, "venue" + i, "description" + i, 50 + i % 10 * 10, "", "address" + i, "08:00", "20:00");
+            venues.add(venue);
+            venuesByName.put(venue.getVenueName(), venue);
+            ordersByVenue.put(i, new TreeMap<>());
+        }
+
+        // 订单平均分到各场馆，每个场馆从FIRST_DAY起逐个时段排满；相同时刻共用一个LocalDateTime实例以控制内存
+        int perVenue = (orderCount + venueCount - 1) / venueCount;
+        days = (perVenue + HOURS_PER_DAY - 1) / HOURS_PER_DAY;
+        LocalDateTime[] slots = new LocalDateTime[days * HOURS_PER_DAY];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = FIRST_DAY.plusDays(i / HOURS_PER_DAY).atTime(OPEN_HOUR + i % HOURS_PER_DAY, 0);
+        }
+        for (int i = 0; i < orderCount; i++) {
+            Venue venue = venues.get(i % venueCount);
+            int slot = i / venueCount;
+            LocalDateTime startTime = slots[slot];
+            Order order = new Order(orderIDs.incrementAndGet(), users.get(random.nextInt(userCount)).getUserID(),
+                    venue.getVenueID(), 1 + random.nextInt(4), slots[Math.max(0, slot - HOURS_PER_DAY)], startTime,
+                    1, venue.getPrice());
+            orders.add(order);
+            ordersByVenue.get(venue.getVenueID()).put(startTime, order);
+        }
+        for (int i = 1; i <= messageCount; i++) {
+            messages.add(new Message(i, users.get(random.nextInt(userCount)).getUserID(), "message content " + i,
+                    slots[random.nextInt(slots.length)], 2));
+        }
+    }
+
+    /**
+     * 已有订单之后的第一天，提交新订单从这一天开始不会冲突
+     */
+    public LocalDate firstFreeDay() {
+        return FIRST_DAY.plusDays(days);
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public List<Venue> getVenues() {
+        return venues;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public UserDao userDao() {
+        return dao(UserDao.class, (method, args) -> {
+            switch (method.getName()) {
+                case "findByUserID":
+                    return usersByID.get((String) args[0]);
+                case "findAllByUserIDIn": {
+                    List<User> result = new ArrayList<>();
+                    for (Object userID : (Collection<?>) args[0]) {
+                        User user = usersByID.get((String) userID);
+                        if (user != null) {
+                            result.add(user);
+                        }
+                    }
+                    return result;
+                }
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    public VenueDao venueDao() {
+        return dao(VenueDao.class, (method, args) -> {
+            switch (method.getName()) {
+                case "findByVenueName":
+                    return venuesByName.get((String) args[0]);
+                case "findByVenueID":
+                    return venue((Integer) args[0]);
+                case "findAllById": {
+                    List<Venue> result = new ArrayList<>();
+                    for (Object venueID : (Iterable<?>) args[0]) {
+                        Venue venue = venue((Integer) venueID);
+                        if (venue != null) {
+                            result.add(venue);
+                        }
+                    }
+                    return result;
+                }
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    /**
+     * 保存只分配ID，不写入数据表，避免测量期间堆不断增长影响结果
+     */
+    public OrderDao orderDao() {
+        return dao(OrderDao.class, (method, args) -> {
+            switch (method.getName()) {
+                case "findByVenueIDAndStartTimeIsBetween": {
+                    NavigableMap<LocalDateTime, Order> venueOrders = ordersByVenue.get((Integer) args[0]);
+                    if (venueOrders == null) {
+                        return new ArrayList<>();
+                    }
+                    synchronized (venueOrders) {
+                        return new ArrayList<>(venueOrders.subMap((LocalDateTime) args[1], true, (LocalDateTime) args[2], true).values());
+                    }
+                }
+                case "save": {
+                    Order order = (Order) args[0];
+                    if (order.getOrderID() == 0) {
+                        order.setOrderID(orderIDs.incrementAndGet());
+                    }
+                    return order;
+                }
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    public MessageDao messageDao() {
+        return dao(MessageDao.class, (method, args) -> unsupported(method));
+    }
+
+    private Venue venue(int venueID) {
+        return venueID >= 1 && venueID <= venues.size() ? venues.get(venueID - 1) : null;
+    }
+
+    private interface Table {
+        Object query(Method method, Object[] args);
+    }
+
+    private static Object unsupported(Method method) {
+        throw new UnsupportedOperationException(method.getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T dao(Class<T> type, Table table) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return type.getSimpleName();
+                }
+            }
+            return table.query(method, args);
+        });
+    }
+}
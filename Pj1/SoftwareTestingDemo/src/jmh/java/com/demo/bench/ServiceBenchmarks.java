@@ -0,0 +1,186 @@
+package com.demo.bench;
+
+import com.demo.cache.EntityCounter;
+import com.demo.cache.VenueAvailabilityIndex;
+import com.demo.cache.VenueCache;
+import com.demo.entity.Message;
+import com.demo.entity.Order;
+import com.demo.entity.User;
+import com.demo.entity.Venue;
+import com.demo.entity.vo.MessageVo;
+import com.demo.entity.vo.OrderVo;
+import com.demo.service.impl.BookingCoordinator;
+import com.demo.service.impl.CredentialServiceImpl;
+import com.demo.service.impl.MessageVoServiceImpl;
+import com.demo.service.impl.OrderExpiryScheduler;
+import com.demo.service.impl.OrderServiceImpl;
+import com.demo.service.impl.OrderVoServiceImpl;
+import com.demo.service.impl.UserServiceImpl;
+import com.demo.service.impl.VenueServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * service层热点方法的JMH基准测试
+ * 不随普通测试运行，使用 mvn -Pbenchmark test-compile exec:exec 执行。
+ * 吞吐量和延迟分位数分别由Throughput、SampleTime模式给出，内存分配量由GC profiler给出(gc.alloc.rate.norm)。
+ * DAO由内存数据表实现(见BenchmarkData)，测得的是service层自身的开销，不含SQL执行时间。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ServiceBenchmarks {
+    private static final int PAGE_SIZE = 10;
+    private static final String PASSWORD = "password";
+
+    private BenchmarkData data;
+    private OrderServiceImpl orderService;
+    private OrderVoServiceImpl orderVoService;
+    private MessageVoServiceImpl messageVoService;
+    private CredentialServiceImpl credentialService;
+    private UserServiceImpl userService;
+    private VenueServiceImpl venueService;
+
+    private List<Venue> venues;
+    private List<User> users;
+    private List<List<Order>> orderPages;
+    private List<List<Message>> messagePages;
+    private LocalDate firstFreeDay;
+    private Random random;
+    private long nextOrder;
+    private int nextPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData();
+        venues = data.getVenues();
+        users = data.getUsers();
+        random = data.getRandom();
+        firstFreeDay = data.firstFreeDay();
+        orderPages = pages(data.getOrders());
+        messagePages = pages(data.getMessages());
+
+        VenueAvailabilityIndex index = new VenueAvailabilityIndex();
+        ReflectionTestUtils.setField(index, "orderDao", data.orderDao());
+        orderService = new OrderServiceImpl();
+        ReflectionTestUtils.setField(orderService, "orderDao", data.orderDao());
+        ReflectionTestUtils.setField(orderService, "venueDao", data.venueDao());
+        ReflectionTestUtils.setField(orderService, "venueCache", new VenueCache());
+        ReflectionTestUtils.setField(orderService, "availabilityIndex", index);
+        ReflectionTestUtils.setField(orderService, "bookingCoordinator", new BookingCoordinator());
+        ReflectionTestUtils.setField(orderService, "entityCounter", new EntityCounter());
+        ReflectionTestUtils.setField(orderService, "expiryScheduler", new OrderExpiryScheduler());
+
+        orderVoService = new OrderVoServiceImpl();
+        ReflectionTestUtils.setField(orderVoService, "orderDao", data.orderDao());
+        ReflectionTestUtils.setField(orderVoService, "venueDao", data.venueDao());
+
+        messageVoService = new MessageVoServiceImpl();
+        ReflectionTestUtils.setField(messageVoService, "messageDao", data.messageDao());
+        ReflectionTestUtils.setField(messageVoService, "userDao", data.userDao());
+
+        // 所有用户使用同一个密码哈希，避免准备阶段为每个用户计算bcrypt
+        credentialService = new CredentialServiceImpl();
+        credentialService.init();
+        userService = new UserServiceImpl();
+        ReflectionTestUtils.setField(userService, "userDao", data.userDao());
+        ReflectionTestUtils.setField(userService, "credentialService", credentialService);
+        String hash = credentialService.encode(PASSWORD);
+        for (User user : users) {
+            user.setPassword(hash);
+        }
+
+        venueService = new VenueServiceImpl();
+        ReflectionTestUtils.setField(venueService, "venueDao", data.venueDao());
+        ReflectionTestUtils.setField(venueService, "venueCache", new VenueCache());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        credentialService.shutdown();
+    }
+
+    /**
+     * 依次占用各场馆之后每天的空闲时段，每次提交都会成功；新的一天第一次访问时从数据表加载占用
+     */
+    @Benchmark
+    public Venue orderSubmit() {
+        long n = nextOrder++;
+        Venue venue = venues.get((int) (n % venues.size()));
+        long slot = n / venues.size();
+        orderService.submit(venue.getVenueName(),
+                firstFreeDay.plusDays(slot / 24).atTime((int) (slot % 24), 0), 1,
+                users.get((int) (n % users.size())).getUserID());
+        return venue;
+    }
+
+    @Benchmark
+    public List<OrderVo> orderVoReturnVo() {
+        return orderVoService.returnVo(orderPages.get(nextPage++ % orderPages.size()));
+    }
+
+    @Benchmark
+    public List<MessageVo> messageVoReturnVo() {
+        return messageVoService.returnVo(messagePages.get(nextPage++ % messagePages.size()));
+    }
+
+    /**
+     * 校验在单独的线程池中执行，单线程调用时结果即每个核每秒的登录次数
+     */
+    @Benchmark
+    public User userCheckLogin() {
+        return userService.checkLogin(users.get(random.nextInt(users.size())).getUserID(), PASSWORD);
+    }
+
+    @Benchmark
+    public Venue venueFindByVenueName() {
+        return venueService.findByVenueName(venues.get(random.nextInt(venues.size())).getVenueName());
+    }
+
+    /**
+     * 按页大小切分，模拟列表页的输入
+     */
+    private static <T> List<List<T>> pages(List<T> rows) {
+        List<List<T>> pages = new ArrayList<>();
+        for (int i = 0; i + PAGE_SIZE <= rows.size() && pages.size() < 10_000; i += PAGE_SIZE) {
+            pages.add(rows.subList(i, i + PAGE_SIZE));
+        }
+        return pages;
+    }
+
+    /**
+     * 在IDE中直接运行全部基准测试，附带GC profiler
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ServiceBenchmarks.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
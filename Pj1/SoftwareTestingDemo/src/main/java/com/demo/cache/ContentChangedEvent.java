@@ -0,0 +1,24 @@
+package com.demo.cache;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 公开页面展示的内容发生变化
+ * 由新闻、场馆和留言的service在修改后发布，PageCache据此清除受影响的页面。
+ */
+public class ContentChangedEvent extends ApplicationEvent {
+    public enum Content {
+        NEWS, VENUE, MESSAGE
+    }
+
+    private final Content content;
+
+    public ContentChangedEvent(Object source, Content content) {
+        super(source);
+        this.content = content;
+    }
+
+    public Content getContent() {
+        return content;
+    }
+}
@@ -0,0 +1,33 @@
+package com.demo.cache;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 公开内容的版本号，用作列表接口的ETag
+ * 收到ContentChangedEvent时递增；初始值取启动时间，重启后客户端持有的旧ETag不会误判为未修改。
+ */
+@Component
+public class ContentVersions {
+    private final Map<ContentChangedEvent.Content, AtomicLong> versions = new EnumMap<>(ContentChangedEvent.Content.class);
+
+    public ContentVersions() {
+        long start = System.currentTimeMillis();
+        for (ContentChangedEvent.Content content : ContentChangedEvent.Content.values()) {
+            versions.put(content, new AtomicLong(start));
+        }
+    }
+
+    public long get(ContentChangedEvent.Content content) {
+        return versions.get(content).get();
+    }
+
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        versions.get(event.getContent()).incrementAndGet();
+    }
+}
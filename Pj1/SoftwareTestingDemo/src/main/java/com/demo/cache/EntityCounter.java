@@ -0,0 +1,77 @@
+package com.demo.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 各实体(及各状态)的行数计数
+ * 某个计数第一次被读取时用count查询加载，之后由各service的新建、删除和状态变化增量维护，
+ * 分页页数不再需要每次请求都执行COUNT(*)。无法确定增量时调用invalidate，下次读取时重新加载。
+ */
+@Component
+public class EntityCounter {
+    public static final String NEWS = "news";
+    public static final String VENUE = "venue";
+    public static final String USER = "user";
+    public static final String ORDER = "order:";
+    public static final String MESSAGE = "message:";
+
+    private final Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    public static String order(int state) {
+        return ORDER + state;
+    }
+
+    public static String message(int state) {
+        return MESSAGE + state;
+    }
+
+    /**
+     * 读取计数，未加载时用loader查询数据库
+     */
+    public long get(String key, LongSupplier loader) {
+        AtomicLong count = counts.get(key);
+        if (count == null) {
+            count = counts.computeIfAbsent(key, k -> new AtomicLong(loader.getAsLong()));
+        }
+        return count.get();
+    }
+
+    /**
+     * 增量修改计数，未加载的计数会在下次读取时从数据库得到正确的值，不需要修改
+     */
+    public void add(String key, long delta) {
+        AtomicLong count = counts.get(key);
+        if (count != null) {
+            count.addAndGet(delta);
+        }
+    }
+
+    public void increment(String key) {
+        add(key, 1);
+    }
+
+    public void decrement(String key) {
+        add(key, -1);
+    }
+
+    /**
+     * 状态变化：从一个计数移到另一个计数
+     */
+    public void move(String from, String to, long delta) {
+        add(from, -delta);
+        add(to, delta);
+    }
+
+    public void invalidate(String key) {
+        counts.remove(key);
+    }
+
+    public void invalidatePrefix(String prefix) {
+        counts.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+}
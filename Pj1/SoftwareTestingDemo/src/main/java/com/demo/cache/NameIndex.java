@@ -0,0 +1,132 @@
+package com.demo.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * 名称(userID、场馆名)是否已被使用的快速判断
+ * 布隆过滤器判断一定不存在时直接返回0，不查询数据库；可能存在时先查最近确认存在的名称，再查询数据库。
+ * 布隆过滤器不能删除，删除和改名只会留下误判，误判的名称仍由数据库确认。
+ * 加载完成之前所有查询都交给数据库。
+ */
+public class NameIndex {
+    public static final int CONFIRMED_SIZE = 1024;
+    private static final double FPP = 0.01;
+
+    private final int expected;
+    private volatile BloomFilter filter;
+    private volatile boolean ready;
+    private int capacity;
+    private int added;
+    private List<String> pending;
+    private long generation;
+
+    private final Map<String, Boolean> confirmed = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > CONFIRMED_SIZE;
+        }
+    };
+
+    /**
+     * @param expected 初始容量，加入的名称超过容量后需要用rebuild重建
+     */
+    public NameIndex(int expected) {
+        this.expected = expected;
+        this.capacity = expected;
+        this.filter = new BloomFilter(expected, FPP);
+    }
+
+    /**
+     * 从数据库加载全部名称，重建期间加入的名称不会丢失
+     */
+    public void rebuild(Supplier<Collection<String>> loader) {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        Collection<String> names;
+        try {
+            names = loader.get();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        int size = Math.max(expected, names.size() * 2);
+        BloomFilter rebuilt = new BloomFilter(size, FPP);
+        names.forEach(rebuilt::put);
+        synchronized (this) {
+            pending.forEach(rebuilt::put);
+            added = names.size() + pending.size();
+            capacity = size;
+            pending = null;
+            filter = rebuilt;
+            ready = true;
+        }
+    }
+
+    public synchronized void add(String name) {
+        filter.put(name);
+        added++;
+        if (pending != null) {
+            pending.add(name);
+        }
+    }
+
+    /**
+     * 名称被删除
+     */
+    public synchronized void remove(String name) {
+        confirmed.remove(name);
+        generation++;
+    }
+
+    /**
+     * 名称被修改但不知道原来的名称时使用
+     */
+    public synchronized void clearConfirmed() {
+        confirmed.clear();
+        generation++;
+    }
+
+    /**
+     * 加入的名称超过容量，误判率升高，应该重建
+     */
+    public synchronized boolean saturated() {
+        return ready && pending == null && added > capacity;
+    }
+
+    /**
+     * 返回名称的使用次数，一定不存在时返回0
+     *
+     * @param loader 数据库count查询
+     */
+    public int count(String name, ToIntFunction<String> loader) {
+        if (ready && !filter.mightContain(name)) {
+            return 0;
+        }
+        long seen;
+        synchronized (this) {
+            if (confirmed.containsKey(name)) {
+                return 1;
+            }
+            seen = generation;
+        }
+        int count = loader.applyAsInt(name);
+        if (count > 0) {
+            synchronized (this) {
+                // 查询期间有删除或改名时不记录，避免记住已经不存在的名称
+                if (seen == generation) {
+                    confirmed.put(name, Boolean.TRUE);
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+package com.demo.cache;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.demo.cache.ContentChangedEvent.Content.MESSAGE;
+import static com.demo.cache.ContentChangedEvent.Content.NEWS;
+import static com.demo.cache.ContentChangedEvent.Content.VENUE;
+
+/**
+ * 公开页面的渲染结果缓存
+ * 保存未登录用户看到的完整HTML和强ETag，页面依赖的内容变化时清除。
+ * 渲染期间发生的清除会使这次渲染结果不进入缓存。
+ */
+@Component
+public class PageCache {
+    /**
+     * 可缓存的页面及其依赖的内容
+     */
+    public static final Map<String, Set<ContentChangedEvent.Content>> PAGES = new LinkedHashMap<>();
+
+    static {
+        PAGES.put("/index", EnumSet.of(NEWS, VENUE, MESSAGE));
+        PAGES.put("/news_list", EnumSet.of(NEWS));
+        PAGES.put("/venue_list", EnumSet.of(VENUE));
+    }
+
+    private final Map<String, Entry> pages = new ConcurrentHashMap<>();
+    private long generation;
+
+    public Entry get(String path) {
+        return pages.get(path);
+    }
+
+    /**
+     * 开始渲染前读取，存入时用来判断渲染期间是否发生过清除
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * 保存渲染结果
+     *
+     * @param seen 开始渲染前的generation()
+     * @return 保存的条目，渲染期间发生过清除时不保存，仍返回条目供本次响应使用
+     */
+    public synchronized Entry put(String path, byte[] body, String contentType, long seen) {
+        Entry entry = new Entry(body, contentType);
+        if (seen == generation && PAGES.containsKey(path)) {
+            pages.put(path, entry);
+        }
+        return entry;
+    }
+
+    @EventListener
+    public synchronized void onContentChanged(ContentChangedEvent event) {
+        for (Map.Entry<String, Set<ContentChangedEvent.Content>> page : PAGES.entrySet()) {
+            if (page.getValue().contains(event.getContent())) {
+                pages.remove(page.getKey());
+            }
+        }
+        generation++;
+    }
+
+    public static class Entry {
+        private final byte[] body;
+        private final String contentType;
+        private final String etag;
+
+        private Entry(byte[] body, String contentType) {
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.demo.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+
+/**
+ * 未登录用户访问公开页面时直接返回缓存的HTML
+ * 客户端带的If-None-Match与ETag相同时返回304。已登录用户的页面头部显示用户信息，不使用缓存。
+ * 会话中有任何属性(user、admin或其他登录信息)都视为已登录，只有没有会话或会话为空时使用缓存。
+ */
+public class PageCacheFilter extends OncePerRequestFilter {
+    private final PageCache pageCache;
+
+    public PageCacheFilter(PageCache pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) || !PageCache.PAGES.containsKey(request.getServletPath())) {
+            return true;
+        }
+        HttpSession session = request.getSession(false);
+        return session != null && session.getAttributeNames().hasMoreElements();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getServletPath();
+        PageCache.Entry entry = pageCache.get(path);
+        if (entry != null) {
+            write(request, response, entry);
+            return;
+        }
+
+        long seen = pageCache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        String contentType = wrapper.getContentType();
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || contentType == null || !contentType.startsWith("text/html")) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        entry = pageCache.put(path, wrapper.getContentAsByteArray(), contentType, seen);
+        wrapper.resetBuffer();
+        write(request, response, entry);
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, PageCache.Entry entry) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, entry.getEtag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (entry.getEtag().equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(entry.getContentType());
+        response.setContentLength(entry.getBody().length);
+        response.getOutputStream().write(entry.getBody());
+    }
+}
@@ -0,0 +1,173 @@
+package com.demo.cache;
+
+import com.demo.dao.OrderDao;
+import com.demo.entity.Order;
+import com.demo.service.OrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 场馆每日时段占用索引
+ * 每个场馆每天用一个int记录24个小时时段，第h位为1表示h点开始的一小时已被预订。
+ * 某天第一次被访问时从数据库加载，之后由订单的新建、修改、删除和状态变化增量维护。
+ * 已拒绝(失效)的订单不占用时段。
+ * 每个场馆最多保留DAYS_PER_VENUE天，超过时淘汰最久未访问的一天，下次访问重新加载。
+ */
+@Component
+public class VenueAvailabilityIndex {
+    public static final int SLOTS_PER_DAY = 24;
+    public static final int DAYS_PER_VENUE = 120;
+
+    @Autowired
+    private OrderDao orderDao;
+
+    private final Map<Integer, VenueSlots> venues = new ConcurrentHashMap<>();
+
+    /**
+     * 返回场馆某天的占用位图
+     *
+     * @param venueID
+     * @param date
+     * @return 第h位为1表示h点已被占用
+     */
+    public int occupied(int venueID, LocalDate date) {
+        VenueSlots slots = slots(venueID);
+        synchronized (slots) {
+            return slots.day(venueID, date);
+        }
+    }
+
+    /**
+     * 检查时段是否与已有预订冲突
+     */
+    public boolean hasConflict(int venueID, LocalDateTime startTime, int hours) {
+        return hasConflict(venueID, startTime, hours, null);
+    }
+
+    /**
+     * 检查时段是否与已有预订冲突，忽略ignored订单自身占用的时段(修改订单时使用)
+     */
+    public boolean hasConflict(int venueID, LocalDateTime startTime, int hours, Order ignored) {
+        Map<LocalDate, Integer> wanted = masks(startTime, hours);
+        Map<LocalDate, Integer> own = ignored != null && ignored.getVenueID() == venueID && occupies(ignored)
+                ? masks(ignored.getStartTime(), ignored.getHours()) : null;
+        VenueSlots slots = slots(venueID);
+        synchronized (slots) {
+            for (Map.Entry<LocalDate, Integer> entry : wanted.entrySet()) {
+                int taken = slots.day(venueID, entry.getKey());
+                if (own != null) {
+                    taken &= ~own.getOrDefault(entry.getKey(), 0);
+                }
+                if ((taken & entry.getValue()) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 记录订单占用的时段
+     */
+    public void add(Order order) {
+        if (!occupies(order)) {
+            return;
+        }
+        VenueSlots slots = slots(order.getVenueID());
+        synchronized (slots) {
+            for (Map.Entry<LocalDate, Integer> entry : masks(order.getStartTime(), order.getHours()).entrySet()) {
+                Integer day = slots.days.get(entry.getKey());
+                if (day != null) {
+                    slots.days.put(entry.getKey(), day | entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * 释放订单占用的时段
+     * 同一时段可能存在历史遗留的重叠订单，因此不直接清位，而是让涉及的日期下次访问时重新加载
+     */
+    public void remove(Order order) {
+        if (order == null || order.getStartTime() == null) {
+            return;
+        }
+        VenueSlots slots = venues.get(order.getVenueID());
+        if (slots == null) {
+            return;
+        }
+        synchronized (slots) {
+            for (LocalDate date : masks(order.getStartTime(), order.getHours()).keySet()) {
+                slots.days.remove(date);
+            }
+        }
+    }
+
+    /**
+     * 丢弃场馆的全部占用记录
+     */
+    public void evict(int venueID) {
+        venues.remove(venueID);
+    }
+
+    private VenueSlots slots(int venueID) {
+        return venues.computeIfAbsent(venueID, id -> new VenueSlots());
+    }
+
+    private static boolean occupies(Order order) {
+        return order != null && order.getStartTime() != null && order.getState() != OrderService.STATE_REJECT;
+    }
+
+    /**
+     * 把一段预订时间拆分成按天的位图
+     */
+    static Map<LocalDate, Integer> masks(LocalDateTime startTime, int hours) {
+        Map<LocalDate, Integer> masks = new HashMap<>();
+        LocalDateTime hour = startTime.withMinute(0).withSecond(0).withNano(0);
+        for (int i = 0; i < hours; i++, hour = hour.plusHours(1)) {
+            masks.merge(hour.toLocalDate(), 1 << hour.getHour(), (a, b) -> a | b);
+        }
+        return masks;
+    }
+
+    private class VenueSlots {
+        private final Map<LocalDate, Integer> days = new LinkedHashMap<LocalDate, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, Integer> eldest) {
+                return size() > DAYS_PER_VENUE;
+            }
+        };
+
+        /**
+         * 调用方需持有当前对象的锁
+         */
+        private int day(int venueID, LocalDate date) {
+            Integer day = days.get(date);
+            if (day == null) {
+                day = load(venueID, date);
+                days.put(date, day);
+            }
+            return day;
+        }
+
+        private int load(int venueID, LocalDate date) {
+            // 前一天开始的订单可能跨过零点
+            LocalDateTime from = date.minusDays(1).atStartOfDay();
+            LocalDateTime to = date.plusDays(1).atStartOfDay();
+            int day = 0;
+            for (Order order : orderDao.findByVenueIDAndStartTimeIsBetween(venueID, from, to)) {
+                if (occupies(order)) {
+                    day |= masks(order.getStartTime(), order.getHours()).getOrDefault(date, 0);
+                }
+            }
+            return day;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.demo.cache;
+
+import com.demo.entity.Venue;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * 场馆缓存
+ * 按ID和场馆名读取，按最近最少使用淘汰；分页列表和全部场馆列表单独缓存，任何场馆变化都会清空列表。
+ * 缓存中保存的是副本，调用方修改返回的对象不会影响缓存。
+ * 数据库查询在锁外执行，查询期间发生的失效会使这次查询结果不进入缓存。
+ */
+@Component
+public class VenueCache {
+    public static final int MAX_VENUES = 1024;
+    public static final int MAX_PAGES = 64;
+
+    private final Map<Integer, Venue> byID = new LinkedHashMap<Integer, Venue>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Venue> eldest) {
+            if (size() > MAX_VENUES) {
+                byName.remove(eldest.getValue().getVenueName());
+                return true;
+            }
+            return false;
+        }
+    };
+    private final Map<String, Integer> byName = new HashMap<>();
+    private final Map<Pageable, Page<Venue>> pages = new LinkedHashMap<Pageable, Page<Venue>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Pageable, Page<Venue>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    private List<Venue> all;
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 按ID读取，未命中时用loader查询，查询结果为null时不缓存
+     */
+    public Venue get(int venueID, IntFunction<Venue> loader) {
+        long seen;
+        synchronized (this) {
+            Venue venue = byID.get(venueID);
+            if (venue != null) {
+                hits.incrementAndGet();
+                return copy(venue);
+            }
+            seen = generation;
+        }
+        misses.incrementAndGet();
+        Venue venue = loader.apply(venueID);
+        if (venue != null) {
+            put(venue, seen);
+        }
+        return venue;
+    }
+
+    /**
+     * 按场馆名读取，未命中时用loader查询，查询结果为null时不缓存
+     */
+    public Venue getByName(String venueName, Function<String, Venue> loader) {
+        long seen;
+        synchronized (this) {
+            Integer venueID = byName.get(venueName);
+            Venue venue = venueID == null ? null : byID.get(venueID);
+            if (venue != null) {
+                hits.incrementAndGet();
+                return copy(venue);
+            }
+            seen = generation;
+        }
+        misses.incrementAndGet();
+        Venue venue = loader.apply(venueName);
+        if (venue != null) {
+            put(venue, seen);
+        }
+        return venue;
+    }
+
+    /**
+     * 读取一页场馆
+     */
+    public Page<Venue> page(Pageable pageable, Function<Pageable, Page<Venue>> loader) {
+        long seen;
+        synchronized (this) {
+            Page<Venue> page = pages.get(pageable);
+            if (page != null) {
+                hits.incrementAndGet();
+                return page.map(VenueCache::copy);
+            }
+            seen = generation;
+        }
+        misses.incrementAndGet();
+        Page<Venue> page = loader.apply(pageable);
+        synchronized (this) {
+            if (seen == generation) {
+                pages.put(pageable, page.map(VenueCache::copy));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * 读取全部场馆
+     */
+    public List<Venue> all(Supplier<List<Venue>> loader) {
+        long seen;
+        synchronized (this) {
+            if (all != null) {
+                hits.incrementAndGet();
+                return copy(all);
+            }
+            seen = generation;
+        }
+        misses.incrementAndGet();
+        List<Venue> venues = loader.get();
+        synchronized (this) {
+            if (seen == generation) {
+                all = copy(venues);
+            }
+        }
+        return venues;
+    }
+
+    /**
+     * 场馆被修改或删除：移除该场馆并清空列表
+     */
+    public synchronized void invalidate(int venueID) {
+        byID.remove(venueID);
+        byName.values().removeIf(id -> id == venueID);
+        invalidateLists();
+    }
+
+    /**
+     * 新增场馆：只需清空列表
+     */
+    public synchronized void invalidateLists() {
+        pages.clear();
+        all = null;
+        generation++;
+    }
+
+    public synchronized void clear() {
+        byID.clear();
+        byName.clear();
+        invalidateLists();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int size() {
+        return byID.size();
+    }
+
+    private synchronized void put(Venue venue, long seen) {
+        if (seen != generation) {
+            return;
+        }
+        Venue old = byID.put(venue.getVenueID(), copy(venue));
+        if (old != null && !Objects.equals(old.getVenueName(), venue.getVenueName())) {
+            byName.remove(old.getVenueName());
+        }
+        byName.put(venue.getVenueName(), venue.getVenueID());
+    }
+
+    private static Venue copy(Venue venue) {
+        return new Venue(venue.getVenueID(), venue.getVenueName(), venue.getDescription(), venue.getPrice(),
+                venue.getPicture(), venue.getAddress(), venue.getOpen_time(), venue.getClose_time());
+    }
+
+    private static List<Venue> copy(List<Venue> venues) {
+        List<Venue> copies = new ArrayList<>(venues.size());
+        for (Venue venue : venues) {
+            copies.add(copy(venue));
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,63 @@
+package com.demo.cache.hibernate;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.Map;
+
+/**
+ * 进程内的Hibernate二级缓存
+ * 每个区域的过期时间和容量通过配置设置：
+ * demo.cache.区域名.ttl_seconds(默认0，不过期)、demo.cache.区域名.max_entries(默认10000)。
+ * 更新时间戳区域决定查询缓存是否失效，由LocalTimestampsAccess保存，容量同样用max_entries设置(默认1024)，不过期。
+ */
+public class LocalRegionFactory extends RegionFactoryTemplate {
+    public static final String PREFIX = "demo.cache.";
+    public static final long DEFAULT_TTL_SECONDS = 0;
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final int DEFAULT_TIMESTAMPS_MAX_ENTRIES = 1024;
+
+    private Map configValues;
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+        this.configValues = configValues;
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        configValues = null;
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return storage(regionConfig.getRegionName());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return storage(regionName);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return new LocalTimestampsAccess((int) setting(regionName, "max_entries", DEFAULT_TIMESTAMPS_MAX_ENTRIES));
+    }
+
+    private LocalStorageAccess storage(String regionName) {
+        long ttlSeconds = setting(regionName, "ttl_seconds", DEFAULT_TTL_SECONDS);
+        long maxEntries = setting(regionName, "max_entries", DEFAULT_MAX_ENTRIES);
+        return new LocalStorageAccess(ttlSeconds * 1000, (int) maxEntries);
+    }
+
+    private long setting(String regionName, String name, long defaultValue) {
+        Object value = configValues == null ? null : configValues.get(PREFIX + regionName + "." + name);
+        return value == null ? defaultValue : Long.parseLong(value.toString().trim());
+    }
+}
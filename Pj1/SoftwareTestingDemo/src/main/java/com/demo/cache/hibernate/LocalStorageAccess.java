@@ -0,0 +1,85 @@
+package com.demo.cache.hibernate;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 二级缓存区域的本地存储
+ * 按最近最少使用淘汰，可设置过期时间；maxEntries为0表示不限数量，ttlMillis为0表示不过期。
+ */
+public class LocalStorageAccess implements DomainDataStorageAccess {
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<Object, Item> items;
+
+    public LocalStorageAccess(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.items = new LinkedHashMap<Object, Item>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Item> eldest) {
+                return LocalStorageAccess.this.maxEntries > 0 && size() > LocalStorageAccess.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Item item = items.get(key);
+        if (item == null) {
+            return null;
+        }
+        if (item.expiresAt != 0 && item.expiresAt < System.currentTimeMillis()) {
+            items.remove(key);
+            return null;
+        }
+        return item.value;
+    }
+
+    @Override
+    public synchronized void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        items.put(key, new Item(value, ttlMillis == 0 ? 0 : System.currentTimeMillis() + ttlMillis));
+    }
+
+    @Override
+    public void putFromLoad(Object key, Object value, SharedSessionContractImplementor session) {
+        putIntoCache(key, value, session);
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return getFromCache(key, null) != null;
+    }
+
+    @Override
+    public synchronized void evictData() {
+        items.clear();
+    }
+
+    @Override
+    public synchronized void evictData(Object key) {
+        items.remove(key);
+    }
+
+    @Override
+    public void release() {
+        evictData();
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    private static class Item {
+        private final Object value;
+        private final long expiresAt;
+
+        private Item(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
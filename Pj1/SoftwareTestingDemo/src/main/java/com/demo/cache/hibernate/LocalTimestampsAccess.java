@@ -0,0 +1,76 @@
+package com.demo.cache.hibernate;
+
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 更新时间戳区域的本地存储，键是表名(查询空间)，值是最后更新时间
+ * Hibernate把没有记录的表当作从未更新，直接淘汰会让旧的查询结果被当作有效。
+ * 因此超过maxEntries淘汰最久未使用的表时，把它的时间戳计入floor，没有记录的表都按floor返回：
+ * 淘汰前缓存的查询结果全部失效，只会多查询数据库，不会读到旧数据。
+ */
+public class LocalTimestampsAccess implements StorageAccess {
+    private final int maxEntries;
+    private final Map<Object, Object> timestamps;
+    private Long floor;
+
+    public LocalTimestampsAccess(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.timestamps = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                if (size() > LocalTimestampsAccess.this.maxEntries) {
+                    raiseFloor(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Object timestamp = timestamps.get(key);
+        return timestamp != null ? timestamp : floor;
+    }
+
+    @Override
+    public synchronized void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        timestamps.put(key, value);
+    }
+
+    @Override
+    public synchronized boolean contains(Object key) {
+        return timestamps.containsKey(key);
+    }
+
+    @Override
+    public synchronized void evictData() {
+        timestamps.values().forEach(this::raiseFloor);
+        timestamps.clear();
+    }
+
+    @Override
+    public synchronized void evictData(Object key) {
+        raiseFloor(timestamps.remove(key));
+    }
+
+    @Override
+    public synchronized void release() {
+        timestamps.clear();
+        floor = null;
+    }
+
+    public synchronized int size() {
+        return timestamps.size();
+    }
+
+    private void raiseFloor(Object timestamp) {
+        if (timestamp instanceof Long && (floor == null || (Long) timestamp > floor)) {
+            floor = (Long) timestamp;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.demo.config;
+
+import com.demo.metrics.EndpointMetrics;
+import com.demo.metrics.MetricsFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 放在最外层，页面缓存命中的请求也计入统计
+     */
+    @Bean
+    public FilterRegistrationBean<MetricsFilter> metricsFilter(EndpointMetrics endpointMetrics) {
+        FilterRegistrationBean<MetricsFilter> registration = new FilterRegistrationBean<>(new MetricsFilter(endpointMetrics));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
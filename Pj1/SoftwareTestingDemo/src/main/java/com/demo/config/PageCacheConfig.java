@@ -0,0 +1,21 @@
+package com.demo.config;
+
+import com.demo.cache.PageCache;
+import com.demo.cache.PageCacheFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PageCacheConfig {
+
+    /**
+     * 只对可缓存的公开页面注册
+     */
+    @Bean
+    public FilterRegistrationBean<PageCacheFilter> pageCacheFilter(PageCache pageCache) {
+        FilterRegistrationBean<PageCacheFilter> registration = new FilterRegistrationBean<>(new PageCacheFilter(pageCache));
+        registration.addUrlPatterns(PageCache.PAGES.keySet().toArray(new String[0]));
+        return registration;
+    }
+}
@@ -0,0 +1,12 @@
+package com.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 启用@Scheduled定时任务(订单归档)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,68 @@
+package com.demo.config;
+
+import com.demo.session.OffHeapSessionManager;
+import com.demo.session.OffHeapSessionStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 用OffHeapSessionManager代替Tomcat默认的堆内会话管理
+ * 会话文件按端口区分；随机端口(测试)使用临时目录中的文件，退出时删除。
+ * 默认目录在用户主目录下，不放在所有用户共享的临时目录中。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "demo.session", name = "off-heap", havingValue = "true")
+public class SessionStoreConfig {
+    @Value("${demo.session.dir:${user.home}/.demo/sessions}")
+    private String dir;
+    @Value("${demo.session.capacity-mb:64}")
+    private int capacityMb;
+    @Value("${demo.session.max-idle-swap-seconds:30}")
+    private int maxIdleSwapSeconds;
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> offHeapSessionCustomizer() {
+        int capacity = capacityBytes(capacityMb);
+        return factory -> factory.addContextCustomizers(context -> {
+            OffHeapSessionStore store = new OffHeapSessionStore(sessionFile(factory.getPort()), capacity);
+            context.setManager(new OffHeapSessionManager(store, maxIdleSwapSeconds));
+        });
+    }
+
+    /**
+     * 映射区用int寻址，最大不能超过Integer.MAX_VALUE字节
+     */
+    static int capacityBytes(int capacityMb) {
+        long bytes = capacityMb * 1024L * 1024L;
+        if (bytes <= 0 || bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("demo.session.capacity-mb必须在1到2047之间：" + capacityMb);
+        }
+        return (int) bytes;
+    }
+
+    private Path sessionFile(int port) {
+        if (port > 0) {
+            return Paths.get(dir, "sessions-" + port + ".dat");
+        }
+        try {
+            // 临时目录只有当前用户可以访问，退出时先删文件再删目录
+            Path tempDir = Files.createTempDirectory("demo-sessions-");
+            tempDir.toFile().deleteOnExit();
+            Path file = tempDir.resolve("sessions.dat");
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.demo.config;
+
+import com.demo.entity.User;
+import com.demo.entity.vo.SessionUser;
+import com.demo.exception.LoginException;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * 为SessionUser类型的handler参数注入当前登录的普通用户，未登录时抛出LoginException
+ */
+public class SessionUserArgumentResolver implements HandlerMethodArgumentResolver {
+    public static final String ATTRIBUTE = "user";
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return SessionUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        SessionUser user = from(webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_SESSION));
+        if (user == null) {
+            throw new LoginException("请登录！");
+        }
+        return user;
+    }
+
+    /**
+     * 兼容升级前保存了完整User的session
+     */
+    public static SessionUser from(Object attribute) {
+        if (attribute instanceof SessionUser) {
+            return (SessionUser) attribute;
+        }
+        if (attribute instanceof User) {
+            return SessionUser.of((User) attribute);
+        }
+        return null;
+    }
+}
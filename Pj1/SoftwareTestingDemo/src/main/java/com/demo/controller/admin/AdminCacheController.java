@@ -0,0 +1,24 @@
+package com.demo.controller.admin;
+
+import com.demo.service.CacheStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+@Controller
+public class AdminCacheController {
+    @Autowired
+    private CacheStatsService cacheStatsService;
+
+    /**
+     * 查看各缓存区域的命中率
+     */
+    @GetMapping("/admin/cacheStats.do")
+    @ResponseBody
+    public Map<String,Map<String,Long>> cacheStats(){
+        return cacheStatsService.regionStats();
+    }
+}
@@ -1,9 +1,11 @@
 package com.demo.controller.admin;
 
 import com.demo.entity.Message;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.entity.vo.MessageVo;
 import com.demo.service.MessageService;
 import com.demo.service.MessageVoService;
+import com.demo.utils.PageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -13,6 +15,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @Controller
 public class AdminMessageController {
@@ -23,8 +26,7 @@ public class AdminMessageController {
 
     @GetMapping("/message_manage")
     public String message_manage(Model model){
-        Pageable message_pageable= PageRequest.of(0,10, Sort.by("time").descending());
-        model.addAttribute("total",messageService.findWaitState(message_pageable).getTotalPages());
+        model.addAttribute("total",PageUtil.totalPages(messageService.countWaitState(),10));
         return "admin/message_manage";
     }
 
@@ -41,6 +43,22 @@ public class AdminMessageController {
         return messageVoService.returnVo(messages);
     }
 
+    /**
+     * 游标分页查看未审核留言，带after参数时使用
+     * @param after 上一页返回的游标，第一页传空串
+     */
+    @GetMapping(value = "/messageList.do",params = "after")
+    @ResponseBody
+    public KeysetPage<MessageVo> messageList(@RequestParam("after") String after){
+        KeysetPage<Message> messages=messageService.findWaitState(after,10);
+        return new KeysetPage<>(messageVoService.returnVo(messages.getContent()),messages.getNext());
+    }
+
+    /**
+     * 通过留言，只能审核未审核的留言
+     * @param messageID
+     * @return
+     */
     @PostMapping("/passMessage.do")
     @ResponseBody
     public boolean passMessage(int messageID){
@@ -49,6 +67,11 @@ public class AdminMessageController {
         return true;
     }
 
+    /**
+     * 拒绝留言，只能审核未审核的留言
+     * @param messageID
+     * @return
+     */
     @PostMapping("/rejectMessage.do")
     @ResponseBody
     public boolean rejectMessage(int messageID){
@@ -57,6 +80,28 @@ public class AdminMessageController {
         return true;
     }
 
+    /**
+     * 批量通过留言，已通过或已拒绝的留言保持原状态，结果为false
+     * @param messageIDs
+     * @return 每条留言是否通过成功
+     */
+    @PostMapping("/passMessages.do")
+    @ResponseBody
+    public Map<Integer,Boolean> passMessages(@RequestParam("messageIDs") List<Integer> messageIDs){
+        return messageService.confirmMessages(messageIDs);
+    }
+
+    /**
+     * 批量拒绝留言，已通过或已拒绝的留言保持原状态，结果为false
+     * @param messageIDs
+     * @return 每条留言是否拒绝成功
+     */
+    @PostMapping("/rejectMessages.do")
+    @ResponseBody
+    public Map<Integer,Boolean> rejectMessages(@RequestParam("messageIDs") List<Integer> messageIDs){
+        return messageService.rejectMessages(messageIDs);
+    }
+
     @RequestMapping("/delMessage.do")
     @ResponseBody
     public boolean delMessage(int messageID){
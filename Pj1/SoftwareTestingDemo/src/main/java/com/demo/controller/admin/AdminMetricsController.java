@@ -0,0 +1,35 @@
+package com.demo.controller.admin;
+
+import com.demo.service.MetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+@Controller
+public class AdminMetricsController {
+    @Autowired
+    private MetricsService metricsService;
+
+    /**
+     * 查看各接口的请求耗时、JDBC耗时、SQL语句数和实体加载数分布
+     */
+    @GetMapping("/admin/metrics.do")
+    @ResponseBody
+    public Map<String,Map<String,Object>> metrics(){
+        return metricsService.endpointStats();
+    }
+
+    /**
+     * 运行时修改请求日志采样率
+     */
+    @PostMapping("/admin/metrics/logging.do")
+    @ResponseBody
+    public int logging(int sampleRate){
+        metricsService.setLogSampleRate(sampleRate);
+        return metricsService.getLogSampleRate();
+    }
+}
@@ -1,7 +1,9 @@
 package com.demo.controller.admin;
 
 import com.demo.entity.News;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.service.NewsService;
+import com.demo.utils.PageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -23,9 +25,7 @@ public class AdminNewsController {
 
     @GetMapping("/news_manage")
     public String news_manage(Model model){
-        Pageable news_pageable= PageRequest.of(0,10, Sort.by("time").ascending());
-        Page<News> news=newsService.findAll(news_pageable);
-        model.addAttribute("total",news.getTotalPages());
+        model.addAttribute("total",PageUtil.totalPages(newsService.countAll(),10));
         return "admin/news_manage";
     }
 
@@ -49,6 +49,16 @@ public class AdminNewsController {
         return news.getContent();
     }
 
+    /**
+     * 游标分页查看新闻，带after参数时使用
+     * @param after 上一页返回的游标，第一页传空串
+     */
+    @GetMapping(value = "/newsList.do",params = "after")
+    @ResponseBody
+    public KeysetPage<News> newsList(@RequestParam("after") String after){
+        return newsService.findAll(after,10);
+    }
+
     @PostMapping("/delNews.do")
     @ResponseBody
     public boolean delNews(int newsID){
@@ -1,9 +1,11 @@
 package com.demo.controller.admin;
 
 import com.demo.entity.Order;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.entity.vo.OrderVo;
 import com.demo.service.OrderService;
 import com.demo.service.OrderVoService;
+import com.demo.utils.PageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @Controller
 public class AdminOrderController {
@@ -26,11 +29,11 @@ public class AdminOrderController {
 
     @GetMapping("/reservation_manage")
     public String reservation_manage(Model model){
-        List<Order> orders= orderService.findAuditOrder();
-        List<OrderVo> orderVos=orderVoService.returnVo(orders);
-        Pageable order_pageable= PageRequest.of(0,10, Sort.by("orderTime").descending());
+        KeysetPage<Order> orders= orderService.findAuditOrder(null,10);
+        List<OrderVo> orderVos=orderVoService.returnVo(orders.getContent());
         model.addAttribute("order_list",orderVos);
-        model.addAttribute("total",orderService.findNoAuditOrder(order_pageable).getTotalPages());
+        model.addAttribute("order_next",orders.getNext());
+        model.addAttribute("total",PageUtil.totalPages(orderService.countNoAuditOrder(),10));
 
         return "admin/reservation_manage";
     }
@@ -48,6 +51,18 @@ public class AdminOrderController {
         return orderVoService.returnVo(orders);
     }
 
+    /**
+     * 管理员游标分页查看已审核订单
+     * @param after 上一页返回的游标
+     * @return
+     */
+    @GetMapping("/admin/getAuditOrderList.do")
+    @ResponseBody
+    public KeysetPage<OrderVo> getAuditOrder(@RequestParam(value = "after",required = false)String after){
+        KeysetPage<Order> orders=orderService.findAuditOrder(after,10);
+        return new KeysetPage<>(orderVoService.returnVo(orders.getContent()),orders.getNext());
+    }
+
     @PostMapping("/passOrder.do")
     @ResponseBody
     public boolean confirmOrder(int orderID) {
@@ -61,4 +76,26 @@ public class AdminOrderController {
         orderService.rejectOrder(orderID);
         return true;
     }
+
+    /**
+     * 批量通过订单
+     * @param orderIDs
+     * @return 每个订单是否通过成功
+     */
+    @PostMapping("/passOrders.do")
+    @ResponseBody
+    public Map<Integer,Boolean> confirmOrders(@RequestParam("orderIDs") List<Integer> orderIDs) {
+        return orderService.confirmOrders(orderIDs);
+    }
+
+    /**
+     * 批量拒绝订单
+     * @param orderIDs
+     * @return 每个订单是否拒绝成功
+     */
+    @PostMapping("/rejectOrders.do")
+    @ResponseBody
+    public Map<Integer,Boolean> rejectOrders(@RequestParam("orderIDs") List<Integer> orderIDs) {
+        return orderService.rejectOrders(orderIDs);
+    }
 }
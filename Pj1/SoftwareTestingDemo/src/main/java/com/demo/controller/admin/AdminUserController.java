@@ -1,7 +1,9 @@
 package com.demo.controller.admin;
 
 import com.demo.entity.User;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.service.UserService;
+import com.demo.utils.PageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -13,10 +15,15 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 @Controller
@@ -27,9 +34,7 @@ public class AdminUserController {
 
     @GetMapping("/user_manage")
     public String user_manage(Model model){
-        Pageable user_pageable= PageRequest.of(0,10, Sort.by("id").ascending());
-        Page<User> users=userService.findByUserID(user_pageable);
-        model.addAttribute("total",users.getTotalPages());
+        model.addAttribute("total",PageUtil.totalPages(userService.countUser(),10));
         return "admin/user_manage";
     }
 
@@ -47,6 +52,16 @@ public class AdminUserController {
     }
 
 
+    /**
+     * 游标分页查看用户，带after参数时使用
+     * @param after 上一页返回的游标，第一页传空串
+     */
+    @GetMapping(value = "/userList.do",params = "after")
+    @ResponseBody
+    public KeysetPage<User> userList(@RequestParam("after") String after){
+        return userService.findByUserID(after,10);
+    }
+
     @GetMapping("/user_edit")
     public String user_edit(Model model,int id){
         User user=userService.findById(id);
@@ -81,6 +96,40 @@ public class AdminUserController {
         response.sendRedirect("user_manage");
     }
 
+    /**
+     * 批量导入用户
+     * @param file 每行一个用户：userID,userName,password,email,phone，以#开头的行忽略
+     * @return 导入的用户数
+     */
+    @PostMapping("/importUsers.do")
+    @ResponseBody
+    public int importUsers(MultipartFile file) throws IOException {
+        List<User> users=new ArrayList<>();
+        try(BufferedReader reader=new BufferedReader(new InputStreamReader(file.getInputStream(),StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber=0;
+            while((line=reader.readLine())!=null) {
+                lineNumber++;
+                if(line.trim().isEmpty()||line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields=line.split(",",-1);
+                if(fields.length<3||fields[0].trim().isEmpty()) {
+                    throw new RuntimeException("第"+lineNumber+"行格式错误");
+                }
+                User user=new User();
+                user.setUserID(fields[0].trim());
+                user.setUserName(fields[1].trim());
+                user.setPassword(fields[2].trim());
+                user.setEmail(fields.length>3?fields[3].trim():"");
+                user.setPhone(fields.length>4?fields[4].trim():"");
+                user.setPicture("");
+                users.add(user);
+            }
+        }
+        return userService.importUsers(users);
+    }
+
     @PostMapping("/checkUserID.do")
     @ResponseBody
     public boolean checkUserID(String userID){
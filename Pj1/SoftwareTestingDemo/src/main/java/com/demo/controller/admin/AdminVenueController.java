@@ -1,8 +1,10 @@
 package com.demo.controller.admin;
 
 import com.demo.entity.Venue;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.service.VenueService;
 import com.demo.utils.FileUtil;
+import com.demo.utils.PageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -26,8 +28,7 @@ public class AdminVenueController {
 
     @RequestMapping("/venue_manage")
     public String venue_manage(Model model){
-        Pageable pageable= PageRequest.of(0,10, Sort.by("venueID").ascending());
-        model.addAttribute("total",venueService.findAll(pageable).getTotalPages());
+        model.addAttribute("total",PageUtil.totalPages(venueService.countAll(),10));
         return "admin/venue_manage";
     }
 
@@ -51,6 +52,16 @@ public class AdminVenueController {
 
     }
 
+    /**
+     * 游标分页查看场馆，带after参数时使用
+     * @param after 上一页返回的游标，第一页传空串
+     */
+    @GetMapping(value = "/venueList.do",params = "after")
+    @ResponseBody
+    public KeysetPage<Venue> getVenueList(@RequestParam("after") String after){
+        return venueService.findAll(after,10);
+    }
+
     @PostMapping("/addVenue.do")
     @ResponseBody
     public void addVenue(String venueName, String address, String description,
@@ -1,11 +1,12 @@
 package com.demo.controller.user;
 
 import com.demo.entity.Message;
-import com.demo.entity.User;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.entity.vo.MessageVo;
+import com.demo.entity.vo.SessionUser;
 import com.demo.service.MessageService;
 import com.demo.service.MessageVoService;
-import com.demo.exception.LoginException;
+import com.demo.utils.PageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -14,8 +15,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDateTime;
@@ -29,21 +30,15 @@ public class MessageController {
     private MessageVoService messageVoService;
 
     @GetMapping("/message_list")
-    public String message_list(Model model,HttpServletRequest request)throws Exception{
+    public String message_list(Model model,SessionUser user)throws Exception{
         Pageable message_pageable= PageRequest.of(0,5, Sort.by("time").descending());
         Page<Message> messages=messageService.findPassState(message_pageable);
         List<MessageVo> message_list=messageVoService.returnVo(messages.getContent());
 
-        model.addAttribute("total",messages.getTotalPages());
-
-        Object user=request.getSession().getAttribute("user");
-        if(user==null) {
-            throw new LoginException("请登录！");
-        }
-        User loginUser=(User)user;
+        model.addAttribute("total",PageUtil.totalPages(messageService.countPassState(),5));
 
             Pageable user_message_pageable = PageRequest.of(0,5, Sort.by("time").descending());
-            model.addAttribute("user_total",messageService.findByUser(loginUser.getUserID(),user_message_pageable).getTotalPages());
+            model.addAttribute("user_total",messageService.findByUser(user.getUserID(),user_message_pageable).getTotalPages());
 
 
 
@@ -53,8 +48,11 @@ public class MessageController {
     //只显示通过状态的留言
     @GetMapping("/message/getMessageList")
     @ResponseBody
-    public List<MessageVo> message_list(@RequestParam(value = "page",defaultValue = "1")int page){
-        System.out.println("success");
+    public List<MessageVo> message_list(@RequestParam(value = "page",defaultValue = "1")int page,WebRequest webRequest){
+        // ETag包含页码，同一页通过的留言没有变化时返回304
+        if(webRequest.checkNotModified("message-"+messageService.version()+"-"+page)) {
+            return null;
+        }
         Pageable message_pageable= PageRequest.of(page-1,5, Sort.by("time").descending());
         Page<Message> messages=messageService.findPassState(message_pageable);
         List<MessageVo> message_list=messageVoService.returnVo(messages.getContent());
@@ -62,20 +60,25 @@ public class MessageController {
         return message_list;
     }
 
+    //游标分页，带after参数时使用
+    @GetMapping(value = "/message/getMessageList",params = "after")
+    @ResponseBody
+    public KeysetPage<MessageVo> message_list(@RequestParam("after") String after,WebRequest webRequest){
+        if(webRequest.checkNotModified("message-"+messageService.version()+"-after-"+after)) {
+            return null;
+        }
+        KeysetPage<Message> messages=messageService.findPassState(after,5);
+        return new KeysetPage<>(messageVoService.returnVo(messages.getContent()),messages.getNext());
+    }
+
     //User的留言不管是否通过都显示
     @GetMapping("/message/findUserList")
     @ResponseBody
-    public List<MessageVo> user_message_list(@RequestParam(value = "page",defaultValue = "1")int page,HttpServletRequest request){
-        System.out.println("find user messages");
+    public List<MessageVo> user_message_list(@RequestParam(value = "page",defaultValue = "1")int page,SessionUser user){
 //        if(request.getSession().getAttribute("user")!=null) {
-        Object user=request.getSession().getAttribute("user");
-        if(user==null) {
-            throw new LoginException("请登录！");
-        }
-        User loginUser=(User)user;
 
             Pageable message_pageable = PageRequest.of(page - 1, 5, Sort.by("time").descending());
-            List<Message> user_messages = messageService.findByUser(loginUser.getUserID(), message_pageable).getContent();
+            List<Message> user_messages = messageService.findByUser(user.getUserID(), message_pageable).getContent();
             return messageVoService.returnVo(user_messages);
 //        }
 //        return null;
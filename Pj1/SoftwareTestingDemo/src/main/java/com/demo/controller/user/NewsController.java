@@ -1,7 +1,9 @@
 package com.demo.controller.user;
 
 import com.demo.entity.News;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.service.NewsService;
+import com.demo.utils.PageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -12,6 +14,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -29,18 +32,34 @@ public class NewsController {
 
     @GetMapping("/news/getNewsList")
     @ResponseBody
-    public Page<News> news_list(@RequestParam(value = "page",defaultValue = "1")int page){
-        System.out.println("success");
+    public Page<News> news_list(@RequestParam(value = "page",defaultValue = "1")int page,WebRequest webRequest){
+        // ETag包含页码，同一页的新闻没有变化时返回304
+        if(webRequest.checkNotModified("news-"+newsService.version()+"-"+page)) {
+            return null;
+        }
         Pageable news_pageable= PageRequest.of(page-1,5, Sort.by("time").descending());
         return newsService.findAll(news_pageable);
     }
 
+    /**
+     * 游标分页查看新闻，带after参数时使用
+     * @param after 上一页返回的游标，第一页传空串
+     */
+    @GetMapping(value = "/news/getNewsList",params = "after")
+    @ResponseBody
+    public KeysetPage<News> news_list(@RequestParam("after") String after,WebRequest webRequest){
+        if(webRequest.checkNotModified("news-"+newsService.version()+"-after-"+after)) {
+            return null;
+        }
+        return newsService.findAll(after,5);
+    }
+
     @GetMapping("/news_list")
     public String news_list(Model model){
         Pageable news_pageable= PageRequest.of(0,5, Sort.by("time").descending());
         List<News> news_list= newsService.findAll(news_pageable).getContent();
         model.addAttribute("news_list",news_list);
-        model.addAttribute("total", newsService.findAll(news_pageable).getTotalPages());
+        model.addAttribute("total", PageUtil.totalPages(newsService.countAll(),5));
         return "news_list";
     }
 }
@@ -1,29 +1,37 @@
 package com.demo.controller.user;
 
 import com.demo.entity.Order;
-import com.demo.entity.User;
 import com.demo.entity.Venue;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.entity.vo.OrderVo;
+import com.demo.entity.vo.SessionUser;
+import com.demo.entity.vo.VenueAvailability;
 import com.demo.entity.vo.VenueOrder;
 import com.demo.service.OrderService;
 import com.demo.service.OrderVoService;
 import com.demo.service.VenueService;
-import com.demo.exception.LoginException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 
+@Slf4j
 @Controller
 public class OrderController {
     @Autowired
@@ -33,15 +41,16 @@ public class OrderController {
     @Autowired
     private VenueService venueService;
 
+    /**
+     * 从今天起可以预订的天数，日历只查询这个范围内的日期
+     */
+    @Value("${demo.order.bookable-days:90}")
+    private int bookableDays=90;
+
     @GetMapping("/order_manage")
-    public String order_manage(Model model,HttpServletRequest request){
+    public String order_manage(Model model,SessionUser user){
         Pageable order_pageable = PageRequest.of(0,5, Sort.by("orderTime").descending());
-        Object user=request.getSession().getAttribute("user");
-        if(user==null) {
-            throw new LoginException("请登录！");
-        }
-        User loginUser=(User)user;
-        Page<Order> page=orderService.findUserOrder(loginUser.getUserID(),order_pageable);
+        Page<Order> page=orderService.findUserOrder(user.getUserID(),order_pageable);
 
         model.addAttribute("total",page.getTotalPages());
         return "order_manage";
@@ -62,28 +71,29 @@ public class OrderController {
 
     @GetMapping("/getOrderList.do")
     @ResponseBody
-    public List<OrderVo> order_list(@RequestParam(value = "page",defaultValue = "1")int page, HttpServletRequest request){
+    public List<OrderVo> order_list(@RequestParam(value = "page",defaultValue = "1")int page, SessionUser user){
         Pageable order_pageable = PageRequest.of(page-1,5, Sort.by("orderTime").descending());
-        Object user=request.getSession().getAttribute("user");
-        if(user==null) {
-            throw new LoginException("请登录！");
-        }
-        User loginUser=(User)user;
-        Page<Order> page1=orderService.findUserOrder(loginUser.getUserID(),order_pageable);
+        Page<Order> page1=orderService.findUserOrder(user.getUserID(),order_pageable);
         return orderVoService.returnVo(page1.getContent());
     }
 
+    /**
+     * 游标分页查看用户订单，带after参数时使用
+     * @param after 上一页返回的游标，第一页传空串
+     */
+    @GetMapping(value = "/getOrderList.do",params = "after")
+    @ResponseBody
+    public KeysetPage<OrderVo> order_list(@RequestParam("after") String after, SessionUser user){
+        KeysetPage<Order> orders=orderService.findUserOrder(user.getUserID(),after,5);
+        return new KeysetPage<>(orderVoService.returnVo(orders.getContent()),orders.getNext());
+    }
+
     @PostMapping("/addOrder.do")
-    public void addOrder(String venueName, String date, String startTime, int hours,HttpServletRequest request, HttpServletResponse response) throws Exception {
+    public void addOrder(String venueName, String date, String startTime, int hours,SessionUser user, HttpServletResponse response) throws Exception {
         date=startTime+":00";
         DateTimeFormatter df = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
         LocalDateTime ldt = LocalDateTime.parse(date,df);
-        Object user=request.getSession().getAttribute("user");
-        if(user==null) {
-            throw new LoginException("请登录！");
-        }
-        User loginUser=(User)user;
-        orderService.submit(venueName,ldt,hours,loginUser.getUserID());
+        orderService.submit(venueName,ldt,hours,user.getUserID());
         response.sendRedirect("order_manage");
     }
 
@@ -104,16 +114,11 @@ public class OrderController {
 
     @PostMapping("/modifyOrder")
     @ResponseBody
-    public boolean modifyOrder(String venueName, String date, String startTime, int hours,int orderID, HttpServletRequest request, HttpServletResponse response) throws Exception {
+    public boolean modifyOrder(String venueName, String date, String startTime, int hours,int orderID, SessionUser user, HttpServletResponse response) throws Exception {
         date=startTime+":00";
         DateTimeFormatter df = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
         LocalDateTime ldt = LocalDateTime.parse(date,df);
-        Object user=request.getSession().getAttribute("user");
-        if(user==null) {
-            throw new LoginException("请登录！");
-        }
-        User loginUser=(User)user;
-        orderService.updateOrder(orderID,venueName,ldt,hours,loginUser.getUserID());
+        orderService.updateOrder(orderID,venueName,ldt,hours,user.getUserID());
         response.sendRedirect("order_manage");
         return true;
     }
@@ -134,13 +139,43 @@ public class OrderController {
         DateTimeFormatter df = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
         LocalDateTime ldt = LocalDateTime.parse(date,df);
         LocalDateTime ldt2=ldt.plusDays(1);
-        System.out.println(ldt);
-        System.out.println(ldt2);
 
         venueOrder.setVenue(venue);
         venueOrder.setOrders(orderService.findDateOrder(venue.getVenueID(),ldt,ldt2));
-        System.out.println(venueOrder);
+        log.debug("venue {} has {} orders on {}",venueName,venueOrder.getOrders().size(),ldt.toLocalDate());
         return venueOrder;
 
     }
+
+    /**
+     * 预订页面日历使用，只返回场馆开放时间和已被预订的小时，不查询订单表
+     * @param venueName
+     * @param date yyyy-MM-dd，格式错误或不在可预订范围内时返回400
+     */
+    @GetMapping("/order/getAvailability.do")
+    @ResponseBody
+    public VenueAvailability getAvailability(String venueName,String date){
+        LocalDate day;
+        try {
+            day=LocalDate.parse(date);
+        } catch (NullPointerException|DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"日期格式不正确");
+        }
+        LocalDate today=LocalDate.now();
+        if(day.isBefore(today)||day.isAfter(today.plusDays(bookableDays))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"日期不在可预订范围内");
+        }
+        Venue venue=venueService.findByVenueName(venueName);
+        if(venue==null) {
+            return null;
+        }
+        int mask=orderService.findOccupiedHours(venue.getVenueID(),day);
+        List<Integer> occupied=new ArrayList<>();
+        for(int hour=0;hour<24;hour++) {
+            if((mask&(1<<hour))!=0) {
+                occupied.add(hour);
+            }
+        }
+        return new VenueAvailability(venue.getVenueID(),venue.getOpen_time(),venue.getClose_time(),occupied);
+    }
 }
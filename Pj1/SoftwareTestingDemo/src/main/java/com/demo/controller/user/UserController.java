@@ -1,8 +1,11 @@
 package com.demo.controller.user;
 
+import com.demo.config.SessionUserArgumentResolver;
 import com.demo.entity.User;
+import com.demo.entity.vo.SessionUser;
 import com.demo.service.UserService;
 import com.demo.utils.FileUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -11,9 +14,11 @@ import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.util.Objects;
 
+@Slf4j
 @Controller
 public class UserController {
     @Autowired
@@ -35,16 +40,26 @@ public class UserController {
     @PostMapping("/loginCheck.do")
     @ResponseBody
     public String login(String userID,String password, HttpServletRequest request) throws IOException {
+        // 会话已经以该用户登录时不再校验密码
+        HttpSession session=request.getSession(false);
+        if(session!=null) {
+            if(isLoggedIn(session.getAttribute("user"),userID)) {
+                return "/index";
+            }
+            if(isLoggedIn(session.getAttribute("admin"),userID)) {
+                return "/admin_index";
+            }
+        }
         User user=userService.checkLogin(userID,password);
         if(user!=null){
             if(user.getIsadmin()==0){
-                request.getSession().setAttribute("user",user);
-                System.out.println("user login!");
+                request.getSession().setAttribute("user",SessionUser.of(user));
+                log.debug("user login: {}",userID);
                 return "/index";
             }
             else if(user.getIsadmin()==1){
-                request.getSession().setAttribute("admin",user);
-                System.out.println("admin login!");
+                request.getSession().setAttribute("admin",SessionUser.of(user));
+                log.debug("admin login: {}",userID);
                 return "/admin_index";
             }
         }
@@ -52,6 +67,11 @@ public class UserController {
 
     }
 
+    private static boolean isLoggedIn(Object attribute, String userID) {
+        SessionUser sessionUser=SessionUserArgumentResolver.from(attribute);
+        return sessionUser!=null&&sessionUser.getUserID().equals(userID);
+    }
+
     @PostMapping("/register.do")
     public void register(String userID,String userName, String password, String email, String phone,
                          HttpServletResponse response) throws IOException{
@@ -69,13 +89,13 @@ public class UserController {
     @GetMapping("/logout.do")
     public void logout(HttpServletRequest request, HttpServletResponse response) throws IOException {
         request.getSession().removeAttribute("user");
-        System.out.println("log out success!");
+        log.debug("user log out");
         response.sendRedirect("/index");
     }
     @GetMapping("/quit.do")
     public void quit(HttpServletRequest request, HttpServletResponse response) throws IOException {
         request.getSession().removeAttribute("admin");
-        System.out.println("log out success!");
+        log.debug("admin log out");
         response.sendRedirect("/index");
     }
 
@@ -96,7 +116,7 @@ public class UserController {
 
         userService.updateUser(user);
         request.getSession().removeAttribute("user");
-        request.getSession().setAttribute("user",user);
+        request.getSession().setAttribute("user",SessionUser.of(user));
         response.sendRedirect("user_info");
     }
 
@@ -105,12 +125,13 @@ public class UserController {
     @ResponseBody
     public boolean checkPassword(String userID,String password)
     {
-        User user=userService.findByUserID(userID);
-        return user.getPassword().equals(password);
+        return userService.checkLogin(userID,password)!=null;
     }
 
     @GetMapping("/user_info")
-    public String user_info(Model model){
+    public String user_info(Model model,SessionUser user){
+        // session中只有登录信息，邮箱、手机号等按需读取
+        model.addAttribute("user",userService.findById(user.getId()));
         return "user_info";
     }
 }
@@ -3,6 +3,7 @@ package com.demo.controller.user;
 import com.demo.entity.Venue;
 import com.demo.service.VenueService;
 
+import com.demo.utils.PageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -13,6 +14,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -37,8 +39,11 @@ public class VenueController {
      */
     @ResponseBody
     @GetMapping("/venuelist/getVenueList")
-    public Page<Venue> venue_list(@RequestParam(value = "page",defaultValue = "1")int page){
-        System.out.println("success");
+    public Page<Venue> venue_list(@RequestParam(value = "page",defaultValue = "1")int page,WebRequest webRequest){
+        // ETag包含页码，同一页的场馆没有变化时返回304
+        if(webRequest.checkNotModified("venue-"+venueService.version()+"-"+page)) {
+            return null;
+        }
         Pageable venue_pageable= PageRequest.of(page-1,5, Sort.by("venueID").ascending());
         return venueService.findAll(venue_pageable);
     }
@@ -48,7 +53,7 @@ public class VenueController {
         Pageable venue_pageable= PageRequest.of(0,5, Sort.by("venueID").ascending());
         List<Venue> venue_list=venueService.findAll(venue_pageable).getContent();
         model.addAttribute("venue_list",venue_list);
-        model.addAttribute("total", venueService.findAll(venue_pageable).getTotalPages());
+        model.addAttribute("total", PageUtil.totalPages(venueService.countAll(),5));
         return "venue_list";
     }
 
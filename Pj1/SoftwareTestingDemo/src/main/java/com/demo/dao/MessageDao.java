@@ -4,10 +4,15 @@ import com.demo.entity.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import javax.persistence.LockModeType;
 import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface MessageDao extends JpaRepository<Message,Integer> {
     Message findByMessageID(int messageID);
@@ -16,9 +21,37 @@ public interface MessageDao extends JpaRepository<Message,Integer> {
     
     Page<Message> findAllByState(int state,Pageable pageable);
 
+    long countByState(int state);
+
+    List<Message> findAllByStateOrderByTimeDescMessageIDDesc(int state, Pageable pageable);
+
+    @Query("select m from Message m where m.state = ?1 and (m.time < ?2 or (m.time = ?2 and m.messageID < ?3)) " +
+            "order by m.time desc, m.messageID desc")
+    List<Message> findAllByStateAfter(int state, LocalDateTime time, int messageID, Pageable pageable);
+
     @Transactional
     @Modifying
     @Query(value="update Message o set o.state=?1 where o.messageID=?2",nativeQuery =true)
     void updateState(int state, int messageID);
 
+    /**
+     * 仅当留言当前状态为expectedState时修改状态
+     * @return 受影响的行数，0表示留言不存在或状态已被修改
+     */
+    @Transactional
+    @Modifying
+    @Query("update Message o set o.state=?3 where o.messageID=?1 and o.state=?2")
+    int updateStateIfCurrent(int messageID, int expectedState, int newState);
+
+    /**
+     * 批量查询并锁定留言，需在事务中调用
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Message> findAllByMessageIDIn(Collection<Integer> messageIDs);
+
+    @Transactional
+    @Modifying
+    @Query("update Message o set o.state=?3 where o.messageID in ?1 and o.state=?2")
+    int updateStatesIfCurrent(Collection<Integer> messageIDs, int expectedState, int newState);
+
 }
@@ -1,8 +1,28 @@
 package com.demo.dao;
 
 import com.demo.entity.News;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface NewsDao extends JpaRepository<News,Integer> {
 
+    /**
+     * 分页查询和总数查询都使用查询缓存，新闻表有修改时自动失效
+     */
+    @Override
+    @QueryHints({@QueryHint(name="org.hibernate.cacheable",value="true"),
+            @QueryHint(name="org.hibernate.cacheRegion",value="news-list")})
+    Page<News> findAll(Pageable pageable);
+
+    List<News> findAllByOrderByTimeDescNewsIDDesc(Pageable pageable);
+
+    @Query("select n from News n where n.time < ?1 or (n.time = ?1 and n.newsID < ?2) order by n.time desc, n.newsID desc")
+    List<News> findAllAfter(LocalDateTime time, int newsID, Pageable pageable);
 }
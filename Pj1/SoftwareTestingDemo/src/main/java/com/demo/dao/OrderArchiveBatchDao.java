@@ -0,0 +1,16 @@
+package com.demo.dao;
+
+import java.util.Collection;
+
+/**
+ * OrderArchiveDao中需要直接使用Hibernate的部分
+ */
+public interface OrderArchiveBatchDao {
+    /**
+     * 把order表中的订单复制到归档表，一条语句完成
+     *
+     * @param orderIDs
+     * @return 插入的行数
+     */
+    int copyFromOrders(Collection<Integer> orderIDs);
+}
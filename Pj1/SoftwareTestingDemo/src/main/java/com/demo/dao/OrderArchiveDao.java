@@ -0,0 +1,25 @@
+package com.demo.dao;
+
+import com.demo.entity.ArchivedOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderArchiveDao extends JpaRepository<ArchivedOrder,Integer>, OrderArchiveBatchDao {
+
+    long countByUserID(String userID);
+
+    boolean existsByUserID(String userID);
+
+    @Query("select distinct o.userID from ArchivedOrder o")
+    List<String> findAllUserIDs();
+
+    List<ArchivedOrder> findAllByUserIDOrderByOrderTimeDescOrderIDDesc(String userID, Pageable pageable);
+
+    @Query("select o from ArchivedOrder o where o.userID = ?1 and (o.orderTime < ?2 or (o.orderTime = ?2 and o.orderID < ?3)) " +
+            "order by o.orderTime desc, o.orderID desc")
+    List<ArchivedOrder> findAllByUserIDAfter(String userID, LocalDateTime orderTime, int orderID, Pageable pageable);
+}
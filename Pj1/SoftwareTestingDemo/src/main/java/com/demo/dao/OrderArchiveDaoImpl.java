@@ -0,0 +1,33 @@
+package com.demo.dao;
+
+import com.demo.entity.ArchivedOrder;
+import org.hibernate.query.NativeQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.util.Collection;
+
+/**
+ * OrderArchiveBatchDao的实现，由Spring Data按名称合并到OrderArchiveDao
+ */
+public class OrderArchiveDaoImpl implements OrderArchiveBatchDao {
+    private static final String COPY="insert into order_archive (orderID,userID,venueID,state,order_time,start_time,hours,total) " +
+            "select orderID,userID,venueID,state,order_time,start_time,hours,total from `order` where orderID in ?1";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 原生语句默认会清空全部二级缓存，声明只影响归档表
+     */
+    @Override
+    @Transactional
+    public int copyFromOrders(Collection<Integer> orderIDs) {
+        return entityManager.createNativeQuery(COPY)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(ArchivedOrder.class)
+                .setParameter(1,orderIDs)
+                .executeUpdate();
+    }
+}
@@ -4,11 +4,14 @@ import com.demo.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import javax.persistence.LockModeType;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderDao extends JpaRepository<Order,Integer> {
@@ -17,15 +20,88 @@ public interface OrderDao extends JpaRepository<Order,Integer> {
 
     Page<Order> findAllByState(int state,Pageable pageable);
 
+    long countByState(int state);
+
+    long countByUserID(String userID);
+
     List<Order> findByVenueIDAndStartTimeIsBetween(int venueID, LocalDateTime startTime, LocalDateTime startTime2);
 
-    @Query(value = "select * from `order` o where o.state = ?1 or o.state = ?2 ", nativeQuery = true)
-    List<Order> findAudit(int state1,int state2);
+    /**
+     * 场馆的全部订单，不限日期
+     */
+    List<Order> findAllByVenueID(int venueID);
+
+    /**
+     * 按(state,orderTime,orderID)倒序取第一页，走idx_order_state_time_id索引
+     */
+    @Query("select o from Order o where o.state in ?1 order by o.state desc, o.orderTime desc, o.orderID desc")
+    List<Order> findAudit(Collection<Integer> states, Pageable pageable);
+
+    /**
+     * 按(state,orderTime,orderID)倒序取游标之后的一页
+     */
+    @Query("select o from Order o where o.state in ?1 and (o.state < ?2 or (o.state = ?2 and (o.orderTime < ?3 " +
+            "or (o.orderTime = ?3 and o.orderID < ?4)))) order by o.state desc, o.orderTime desc, o.orderID desc")
+    List<Order> findAuditAfter(Collection<Integer> states, int state, LocalDateTime orderTime, int orderID, Pageable pageable);
+
+    /**
+     * 到期队列需要的字段：orderID, state, startTime, hours
+     */
+    @Query("select o.orderID, o.state, o.startTime, o.hours from Order o where o.state in ?1")
+    List<Object[]> findSchedule(Collection<Integer> states);
+
+    /**
+     * 可以归档的订单：(orderID, state, userID)，下单时间和开始时间都早于before，按(state,orderTime)索引扫描
+     */
+    @Query("select o.orderID, o.state, o.userID from Order o where o.state in ?1 and o.orderTime < ?2 and o.startTime < ?2")
+    List<Object[]> findArchivable(Collection<Integer> states, LocalDateTime before, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Order o where o.orderID in ?1")
+    int deleteAllByOrderIDs(Collection<Integer> orderIDs);
 
     Page<Order> findAllByUserID(String userID, Pageable pageable);
 
+    List<Order> findAllByUserIDOrderByOrderTimeDescOrderIDDesc(String userID, Pageable pageable);
+
+    @Query("select o from Order o where o.userID = ?1 and (o.orderTime < ?2 or (o.orderTime = ?2 and o.orderID < ?3)) " +
+            "order by o.orderTime desc, o.orderID desc")
+    List<Order> findAllByUserIDAfter(String userID, LocalDateTime orderTime, int orderID, Pageable pageable);
+
     @Transactional
     @Modifying
     @Query(value="update `order` o set o.state=?1 where o.orderID=?2",nativeQuery =true)
     void updateState(int state, int orderID);
+
+    /**
+     * 仅当订单当前状态为expectedState时修改状态
+     * @return 受影响的行数，0表示订单不存在或状态已被修改
+     */
+    @Transactional
+    @Modifying
+    @Query("update Order o set o.state=?3 where o.orderID=?1 and o.state=?2")
+    int updateStateIfCurrent(int orderID, int expectedState, int newState);
+
+    /**
+     * 仅当订单当前状态为expectedState时修改订单内容和状态
+     * @return 受影响的行数，0表示订单不存在或状态已被修改
+     */
+    @Transactional
+    @Modifying
+    @Query("update Order o set o.state=?3, o.venueID=?4, o.startTime=?5, o.hours=?6, o.orderTime=?7, o.userID=?8, o.total=?9 " +
+            "where o.orderID=?1 and o.state=?2")
+    int updateIfState(int orderID, int expectedState, int newState, int venueID, LocalDateTime startTime, int hours,
+                      LocalDateTime orderTime, String userID, int total);
+
+    /**
+     * 批量查询并锁定订单，需在事务中调用
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Order> findAllByOrderIDIn(Collection<Integer> orderIDs);
+
+    @Transactional
+    @Modifying
+    @Query("update Order o set o.state=?3 where o.orderID in ?1 and o.state=?2")
+    int updateStatesIfCurrent(Collection<Integer> orderIDs, int expectedState, int newState);
 }
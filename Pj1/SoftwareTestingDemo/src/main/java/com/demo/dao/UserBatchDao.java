@@ -0,0 +1,18 @@
+package com.demo.dao;
+
+import com.demo.entity.User;
+
+import java.util.List;
+
+/**
+ * UserDao中需要直接使用JDBC的部分
+ */
+public interface UserBatchDao {
+    /**
+     * 用JDBC批量插入用户，不经过持久化上下文
+     *
+     * @param users
+     * @return 插入的行数
+     */
+    int batchInsert(List<User> users);
+}
@@ -4,11 +4,26 @@ import com.demo.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface UserDao extends JpaRepository<User,Integer> {
-    User findByUserIDAndPassword(String userID, String password);
+import java.util.Collection;
+import java.util.List;
+
+public interface UserDao extends JpaRepository<User,Integer>, UserBatchDao {
     User findByUserID(String userID);
     Page<User> findAllByIsadmin(int isadmin, Pageable pageable);
     int countByUserID(String userID);
+    long countByIsadmin(int isadmin);
     User findById(int id);
+    List<User> findAllByUserIDIn(Collection<String> userIDs);
+    List<User> findAllByIsadminAndIdGreaterThanOrderByIdAsc(int isadmin, int id, Pageable pageable);
+
+    @Query("select u.password from User u where u.id = ?1")
+    String findPasswordById(int id);
+
+    @Query("select u.userID from User u")
+    List<String> findAllUserIDs();
+
+    @Query("select u.userID from User u where u.userID in ?1")
+    List<String> findExistingUserIDs(Collection<String> userIDs);
 }
@@ -0,0 +1,38 @@
+package com.demo.dao;
+
+import com.demo.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * UserBatchDao的实现，由Spring Data按名称合并到UserDao
+ */
+public class UserDaoImpl implements UserBatchDao {
+    private static final String INSERT="insert into user (userid,user_name,password,email,phone,isadmin,picture) values (?,?,?,?,?,?,?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int batchInsert(List<User> users) {
+        int[][] counts=jdbcTemplate.batchUpdate(INSERT,users,users.size(),(ps,user)->{
+            ps.setString(1,user.getUserID());
+            ps.setString(2,user.getUserName());
+            ps.setString(3,user.getPassword());
+            ps.setString(4,user.getEmail());
+            ps.setString(5,user.getPhone());
+            ps.setInt(6,user.getIsadmin());
+            ps.setString(7,user.getPicture());
+        });
+        int inserted=0;
+        for(int[] batch:counts) {
+            for(int count:batch) {
+                // 驱动改写批量语句时返回SUCCESS_NO_INFO(-2)
+                inserted+=count<0?1:count;
+            }
+        }
+        return inserted;
+    }
+}
@@ -1,6 +1,8 @@
 package com.demo.dao;
 
 import com.demo.entity.Venue;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -15,6 +17,17 @@ public interface VenueDao extends JpaRepository<Venue, Integer> {
     @Query(value = "select * from venue",nativeQuery = true)
     List<Venue> findAll();
 
+    /**
+     * 场馆只由VenueCache缓存，不使用二级缓存和查询缓存
+     */
+    @Override
+    Page<Venue> findAll(Pageable pageable);
+
     int countByVenueName(String venueName);
 
+    @Query("select v.venueName from Venue v")
+    List<String> findAllVenueNames();
+
+    List<Venue> findAllByVenueIDGreaterThanOrderByVenueIDAsc(int venueID, Pageable pageable);
+
 }
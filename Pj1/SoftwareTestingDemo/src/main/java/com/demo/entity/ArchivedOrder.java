@@ -0,0 +1,47 @@
+package com.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 归档的订单，字段与Order相同
+ * 已完成、失效且下单时间超过归档期限的订单从order表移到这里，orderID保持不变。
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="order_archive",indexes = {
+        @Index(name="idx_order_archive_user_time_id",columnList="userID,order_time,orderID")})
+public class ArchivedOrder {
+    @Id
+    private int orderID;
+
+    private String userID;
+
+    private int venueID;
+
+    /**
+     * 3已完成 4失效
+     */
+    @Column(name="state")
+    private int state;
+
+    @Column(name="order_time")
+    private LocalDateTime orderTime;
+
+    @Column(name="start_time")
+    private LocalDateTime startTime;
+
+    private int hours;
+
+    private int total;
+
+    public Order toOrder() {
+        return new Order(orderID,userID,venueID,state,orderTime,startTime,hours,total);
+    }
+}
@@ -14,7 +14,9 @@ import java.util.Date;
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name="`order`")
+@Table(name="`order`",indexes = {
+        @Index(name="idx_order_state_time_id",columnList="state,order_time,orderID"),
+        @Index(name="idx_order_user_time_id",columnList="userID,order_time,orderID")})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
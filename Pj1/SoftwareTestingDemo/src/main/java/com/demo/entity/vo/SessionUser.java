@@ -0,0 +1,36 @@
+package com.demo.entity.vo;
+
+import com.demo.entity.User;
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * 保存在HttpSession中的登录用户
+ * 只包含识别用户和页头显示需要的字段，不保存密码、邮箱、手机号，完整信息需要时通过UserService按id读取(走二级缓存)。
+ * 不可变，修改用户信息后重新放入session。
+ */
+@Value
+public class SessionUser implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    int id;
+
+    String userID;
+
+    String userName;
+
+    /**
+     * 0普通用户 1管理员
+     */
+    int isadmin;
+
+    /**
+     * 头像路径，页头显示
+     */
+    String picture;
+
+    public static SessionUser of(User user) {
+        return new SessionUser(user.getId(),user.getUserID(),user.getUserName(),user.getIsadmin(),user.getPicture());
+    }
+}
@@ -0,0 +1,23 @@
+package com.demo.entity.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 场馆某天的时段占用，预订页面日历使用
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VenueAvailability {
+    private int venueID;
+    private String open_time;
+    private String close_time;
+    /**
+     * 已被预订的小时(h表示h点开始的一小时)
+     */
+    private List<Integer> occupied;
+}
@@ -0,0 +1,54 @@
+package com.demo.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按接口(请求映射)汇总的请求统计，以及请求日志的采样设置
+ */
+@Component
+public class EndpointMetrics {
+    private final Map<String, EndpointTimer> timers = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    /**
+     * 每logSampleRate个请求输出一条请求日志，0表示不输出，运行时可修改
+     */
+    private volatile int logSampleRate;
+
+    public void record(String endpoint, long nanos, RequestStats stats) {
+        timers.computeIfAbsent(endpoint, e -> new EndpointTimer()).record(nanos, stats);
+    }
+
+    public EndpointTimer timer(String endpoint) {
+        return timers.get(endpoint);
+    }
+
+    /**
+     * 当前请求是否输出日志
+     */
+    public boolean sample() {
+        int rate = logSampleRate;
+        return rate > 0 && requests.incrementAndGet() % rate == 0;
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        timers.forEach((endpoint, timer) -> snapshot.put(endpoint, timer.snapshot()));
+        return snapshot;
+    }
+
+    public int getLogSampleRate() {
+        return logSampleRate;
+    }
+
+    public void setLogSampleRate(int logSampleRate) {
+        if (logSampleRate < 0) {
+            throw new IllegalArgumentException("采样率不能为负数");
+        }
+        this.logSampleRate = logSampleRate;
+    }
+}
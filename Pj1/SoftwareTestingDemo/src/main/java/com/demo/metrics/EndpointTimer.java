@@ -0,0 +1,44 @@
+package com.demo.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个接口的请求耗时、JDBC耗时、SQL语句数和实体加载数分布
+ */
+public class EndpointTimer {
+    private final Histogram wallMillis = new Histogram(Histogram.MILLIS);
+    private final Histogram jdbcMillis = new Histogram(Histogram.MILLIS);
+    private final Histogram statements = new Histogram(Histogram.COUNTS);
+    private final Histogram entityLoads = new Histogram(Histogram.COUNTS);
+
+    public void record(long wallNanos, RequestStats stats) {
+        wallMillis.record(TimeUnit.NANOSECONDS.toMillis(wallNanos));
+        jdbcMillis.record(TimeUnit.NANOSECONDS.toMillis(stats.getJdbcNanos()));
+        statements.record(stats.getStatements());
+        entityLoads.record(stats.getEntityLoads());
+    }
+
+    public long getCount() {
+        return wallMillis.getCount();
+    }
+
+    public Histogram getStatements() {
+        return statements;
+    }
+
+    public Histogram getEntityLoads() {
+        return entityLoads;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", getCount());
+        snapshot.put("wallMillis", wallMillis.snapshot());
+        snapshot.put("jdbcMillis", jdbcMillis.snapshot());
+        snapshot.put("statements", statements.snapshot());
+        snapshot.put("entityLoads", entityLoads.snapshot());
+        return snapshot;
+    }
+}
@@ -0,0 +1,74 @@
+package com.demo.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定桶边界的直方图
+ * 快照中的桶是累计值：le_n表示不大于n的次数，le_inf等于总次数。
+ */
+public class Histogram {
+    /**
+     * 耗时(毫秒)
+     */
+    public static final long[] MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+    /**
+     * 次数(SQL语句数、实体加载数)
+     */
+    public static final long[] COUNTS = {0, 1, 2, 3, 5, 10, 20, 50, 100, 500, 1000};
+
+    private final long[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public Histogram(long[] bounds) {
+        this.bounds = bounds;
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        int i = 0;
+        while (i < bounds.length && value > bounds[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += buckets[i].sum();
+            snapshot.put("le_" + bounds[i], cumulative);
+        }
+        cumulative += buckets[bounds.length].sum();
+        snapshot.put("le_inf", cumulative);
+        snapshot.put("sum", sum.sum());
+        snapshot.put("max", max.get());
+        return snapshot;
+    }
+}
@@ -0,0 +1,51 @@
+package com.demo.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * 给DataSource加一层代理，统计当前请求执行的SQL语句数和JDBC耗时
+ * 只拦截Statement的execute系列方法，其他调用原样转发。
+ */
+@Component
+public class JdbcStatementCounter implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource) {
+            return wrap(bean);
+        }
+        return bean;
+    }
+
+    static Object wrap(Object target) {
+        return Proxy.newProxyInstance(target.getClass().getClassLoader(), ClassUtils.getAllInterfaces(target), (proxy, method, args) -> {
+            boolean execute = target instanceof Statement && method.getName().startsWith("execute");
+            long start = execute ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            } finally {
+                if (execute) {
+                    RequestStats stats = RequestStats.current();
+                    if (stats != null) {
+                        stats.statementExecuted(System.nanoTime() - start);
+                    }
+                }
+            }
+            if (result instanceof Connection || result instanceof Statement) {
+                return wrap(result);
+            }
+            return result;
+        });
+    }
+}
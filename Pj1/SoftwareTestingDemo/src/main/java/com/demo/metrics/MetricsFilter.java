@@ -0,0 +1,51 @@
+package com.demo.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录每个请求的耗时、SQL语句数、JDBC耗时和实体加载数，按请求映射汇总；按采样率输出请求日志
+ */
+@Slf4j
+public class MetricsFilter extends OncePerRequestFilter {
+    private final EndpointMetrics metrics;
+
+    public MetricsFilter(EndpointMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestStats stats = RequestStats.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestStats.end();
+            long nanos = stats.elapsedNanos();
+            String endpoint = endpoint(request);
+            metrics.record(endpoint, nanos, stats);
+            if (metrics.sample()) {
+                log.info("{} {} {} {}ms {} statements {}ms jdbc {} entities", request.getMethod(), endpoint, response.getStatus(),
+                        TimeUnit.NANOSECONDS.toMillis(nanos), stats.getStatements(),
+                        TimeUnit.NANOSECONDS.toMillis(stats.getJdbcNanos()), stats.getEntityLoads());
+            }
+        }
+    }
+
+    /**
+     * 优先使用匹配到的请求映射，没有经过DispatcherServlet(如页面缓存命中)时使用请求路径
+     */
+    static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getServletPath();
+    }
+}
@@ -0,0 +1,11 @@
+package com.demo.service;
+
+import java.util.Map;
+
+public interface CacheStatsService {
+    /**
+     * 各缓存区域的命中统计
+     * @return 区域名 -> (hit、miss、hitRatio(千分比)，Hibernate区域另有put)
+     */
+    Map<String,Map<String,Long>> regionStats();
+}
@@ -0,0 +1,48 @@
+package com.demo.service;
+
+import java.util.List;
+
+public interface CredentialService {
+    /**
+     * 计算密码哈希，结果带算法前缀，如{bcrypt}
+     *
+     * @param rawPassword
+     * @return
+     */
+    String encode(String rawPassword);
+
+    /**
+     * 批量计算密码哈希，在校验使用的有界线程池中执行，同时提交的任务不超过线程数，不会挤占登录校验
+     * 线程池已满时在调用线程中计算
+     *
+     * @param rawPasswords
+     * @return 与参数顺序相同的哈希，null保持为null
+     */
+    List<String> encodeAll(List<String> rawPasswords);
+
+    /**
+     * 校验密码，在专用的有界线程池中执行，线程池满时抛出异常而不是让请求线程排队
+     * 兼容迁移前保存的明文密码
+     *
+     * @param rawPassword
+     * @param storedPassword 数据库中保存的密码
+     * @return
+     */
+    boolean matches(String rawPassword, String storedPassword);
+
+    /**
+     * 保存的密码是否需要重新哈希(明文或哈希强度低于当前设置)
+     *
+     * @param storedPassword
+     * @return
+     */
+    boolean needsUpgrade(String storedPassword);
+
+    /**
+     * 是否已经是哈希(带算法前缀)
+     *
+     * @param password
+     * @return
+     */
+    boolean isEncoded(String password);
+}
@@ -1,9 +1,13 @@
 package com.demo.service;
 
 import com.demo.entity.Message;
+import com.demo.entity.vo.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Map;
+
 public interface MessageService {
 
     int STATE_NO_AUDIT=1;
@@ -36,12 +40,72 @@ public interface MessageService {
 
     void update(Message message);
 
+    /**
+     * 通过留言，只有未审核的留言可以通过，已通过或已拒绝的留言不能再改变审核结果
+     * 留言不存在时抛出"留言不存在"，不是未审核状态(包括被其他管理员先审核)时抛出"留言状态已改变"
+     * @param messageID
+     */
     void confirmMessage(int messageID);
 
+    /**
+     * 拒绝留言，只有未审核的留言可以拒绝，已通过的留言需要删除而不是拒绝
+     * 留言不存在时抛出"留言不存在"，不是未审核状态时抛出"留言状态已改变"
+     * @param messageID
+     */
     void rejectMessage(int messageID);
 
+    /**
+     * 批量通过留言，只有未审核的留言会被通过
+     * 重复的ID只处理一次；不存在或不是未审核状态的留言不修改，结果为false
+     * @param messageIDs
+     * @return 每条留言是否通过成功，按请求中的顺序
+     */
+    Map<Integer,Boolean> confirmMessages(List<Integer> messageIDs);
+
+    /**
+     * 批量拒绝留言，只有未审核的留言会被拒绝
+     * 重复的ID只处理一次；不存在或不是未审核状态的留言不修改，结果为false
+     * @param messageIDs
+     * @return 每条留言是否拒绝成功，按请求中的顺序
+     */
+    Map<Integer,Boolean> rejectMessages(List<Integer> messageIDs);
+
     Page<Message> findWaitState(Pageable pageable);
 
     Page<Message> findPassState(Pageable pageable);
 
+    /**
+     * 游标分页查看未审核留言
+     * @param after 上一页返回的游标，为空时返回第一页
+     * @param size
+     * @return
+     */
+    KeysetPage<Message> findWaitState(String after,int size);
+
+    /**
+     * 游标分页查看审核通过的留言
+     * @param after 上一页返回的游标，为空时返回第一页
+     * @param size
+     * @return
+     */
+    KeysetPage<Message> findPassState(String after,int size);
+
+    /**
+     * 未审核留言总数
+     * @return
+     */
+    long countWaitState();
+
+    /**
+     * 审核通过的留言总数
+     * @return
+     */
+    long countPassState();
+
+    /**
+     * 审核通过的留言列表的版本号，留言或留言作者有修改时变化
+     * @return
+     */
+    long version();
+
 }
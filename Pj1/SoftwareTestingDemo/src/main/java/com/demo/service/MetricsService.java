@@ -0,0 +1,18 @@
+package com.demo.service;
+
+import java.util.Map;
+
+public interface MetricsService {
+    /**
+     * 各接口的请求统计
+     * @return 请求映射 -> (count，以及wallMillis、jdbcMillis、statements、entityLoads四个直方图)
+     */
+    Map<String,Map<String,Object>> endpointStats();
+
+    int getLogSampleRate();
+
+    /**
+     * 修改请求日志采样率，0关闭，n表示每n个请求输出一条
+     */
+    void setLogSampleRate(int sampleRate);
+}
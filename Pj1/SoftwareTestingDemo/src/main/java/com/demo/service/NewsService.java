@@ -1,6 +1,7 @@
 package com.demo.service;
 
 import com.demo.entity.News;
+import com.demo.entity.vo.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable
         ;
@@ -8,6 +9,14 @@ import org.springframework.data.domain.Pageable
 public interface NewsService {
     Page<News> findAll(Pageable pageable);
 
+    /**
+     * 按时间倒序游标分页查看新闻
+     * @param after 上一页返回的游标，为空时返回第一页
+     * @param size
+     * @return
+     */
+    KeysetPage<News> findAll(String after,int size);
+
     News findById(int newsID);
 
     int create(News news);
@@ -15,4 +24,16 @@ public interface NewsService {
     void delById(int newsID);
 
     void update(News news);
+
+    /**
+     * 新闻总数
+     * @return
+     */
+    long countAll();
+
+    /**
+     * 新闻列表的版本号，新闻有修改时变化
+     * @return
+     */
+    long version();
 }
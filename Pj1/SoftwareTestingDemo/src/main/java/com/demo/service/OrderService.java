@@ -1,11 +1,14 @@
 package com.demo.service;
 
 import com.demo.entity.Order;
+import com.demo.entity.vo.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface OrderService {
     int STATE_NO_AUDIT=1;
@@ -24,13 +27,48 @@ public interface OrderService {
 
     Page<Order> findNoAuditOrder(Pageable pageable);
 
-    List<Order> findAuditOrder();
+    /**
+     * 未审核订单总数
+     * @return
+     */
+    long countNoAuditOrder();
+
+    /**
+     * 游标分页查看已审核和已完成的订单
+     * @param after 上一页返回的游标，为空时返回第一页
+     * @param size
+     * @return
+     */
+    KeysetPage<Order> findAuditOrder(String after, int size);
 
 
     List<Order> findDateOrder(int venueID, LocalDateTime startTime, LocalDateTime startTime2);
 
+    /**
+     * 查看场馆某天的时段占用情况
+     * @param venueID
+     * @param date
+     * @return 位图，第h位为1表示h点已被预订
+     */
+    int findOccupiedHours(int venueID, LocalDate date);
+
+    /**
+     * 查看用户订单，翻过近期订单后继续返回已归档的订单
+     * @param userID
+     * @param pageable
+     * @return
+     */
     Page<Order> findUserOrder(String userID,Pageable pageable);
 
+    /**
+     * 游标分页查看用户订单，近期订单取完后继续返回已归档的订单
+     * @param userID
+     * @param after 上一页返回的游标，为空时返回第一页
+     * @param size
+     * @return
+     */
+    KeysetPage<Order> findUserOrder(String userID,String after,int size);
+
     void updateOrder(int orderID,String venueName, LocalDateTime startTime, int hours, String userID);
     /**
      * 新建订单
@@ -63,4 +101,30 @@ public interface OrderService {
      * @param orderID
      */
     void rejectOrder(int orderID);
+
+    /**
+     * 批量通过订单，只有未审核的订单会被通过
+     * @param orderIDs
+     * @return 每个订单是否通过成功
+     */
+    Map<Integer,Boolean> confirmOrders(List<Integer> orderIDs);
+
+    /**
+     * 批量拒绝预定，只有未审核的订单会被拒绝
+     * @param orderIDs
+     * @return 每个订单是否拒绝成功
+     */
+    Map<Integer,Boolean> rejectOrders(List<Integer> orderIDs);
+
+    /**
+     * 自动拒绝开始时仍未审核的订单，自动完成结束时间已过的已审核订单，由后台线程定期调用
+     * @return 处理的订单数
+     */
+    int expireOrders();
+
+    /**
+     * 把下单超过归档期限的已完成、失效订单移到归档表，由定时任务调用
+     * @return 归档的订单数
+     */
+    int archiveOrders();
 }
@@ -0,0 +1,65 @@
+package com.demo.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.demo.service.OrderService.STATE_FINISH;
+import static com.demo.service.OrderService.STATE_NO_AUDIT;
+import static com.demo.service.OrderService.STATE_REJECT;
+import static com.demo.service.OrderService.STATE_WAIT;
+
+/**
+ * 订单状态的合法转换
+ * 未审核 -> 已审核(通过)、失效(拒绝或开始时仍未审核)、未审核(修改)
+ * 已审核 -> 已完成(完成或结束时间已过)、失效(管理员拒绝)、未审核(修改后重新审核)
+ * 已完成、失效为终态
+ */
+public final class OrderStateMachine {
+    private static final Map<Integer,Set<Integer>> TRANSITIONS=new HashMap<>();
+
+    static {
+        TRANSITIONS.put(STATE_NO_AUDIT,new HashSet<>(Arrays.asList(STATE_WAIT,STATE_REJECT,STATE_NO_AUDIT)));
+        TRANSITIONS.put(STATE_WAIT,new HashSet<>(Arrays.asList(STATE_FINISH,STATE_REJECT,STATE_NO_AUDIT)));
+        TRANSITIONS.put(STATE_FINISH,Collections.emptySet());
+        TRANSITIONS.put(STATE_REJECT,Collections.emptySet());
+    }
+
+    private OrderStateMachine() {
+    }
+
+    public static boolean canTransition(int from, int to) {
+        return TRANSITIONS.getOrDefault(from,Collections.emptySet()).contains(to);
+    }
+
+    /**
+     * 不合法的转换抛出异常
+     */
+    public static void check(int from, int to) {
+        if(!canTransition(from,to)) {
+            throw new RuntimeException("订单不能从"+name(from)+"变为"+name(to));
+        }
+    }
+
+    public static boolean isFinal(int state) {
+        return TRANSITIONS.getOrDefault(state,Collections.emptySet()).isEmpty();
+    }
+
+    public static String name(int state) {
+        switch (state) {
+            case STATE_NO_AUDIT:
+                return "未审核";
+            case STATE_WAIT:
+                return "已审核";
+            case STATE_FINISH:
+                return "已完成";
+            case STATE_REJECT:
+                return "失效";
+            default:
+                return "未知状态"+state;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.demo.service;
 
 import com.demo.entity.User;
+import com.demo.entity.vo.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 public interface UserService {
     /**
      * 根据用户id查找用户
@@ -21,6 +24,14 @@ public interface UserService {
      */
     Page<User> findByUserID(Pageable pageable);
 
+    /**
+     * 管理员按id游标分页查看用户
+     * @param after 上一页返回的游标，为空时返回第一页
+     * @param size
+     * @return
+     */
+    KeysetPage<User> findByUserID(String after,int size);
+
     /**
      * 检查登录
      *
@@ -34,10 +45,18 @@ public interface UserService {
      * 创建用户
      *
      * @param user
-     * @return
+     * @return 新用户的id
      */
     int create(User user);
 
+    /**
+     * 批量导入用户，userID已存在或在列表中重复的跳过
+     *
+     * @param users
+     * @return 导入的用户数
+     */
+    int importUsers(List<User> users);
+
     /**
      * 根据id删除用户
      *
@@ -48,4 +67,10 @@ public interface UserService {
     void updateUser(User user);
 
     int countUserID(String userID);
+
+    /**
+     * 普通用户(非管理员)总数
+     * @return
+     */
+    long countUser();
 }
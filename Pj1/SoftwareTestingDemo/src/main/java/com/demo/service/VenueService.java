@@ -1,6 +1,7 @@
 package com.demo.service;
 
 import com.demo.entity.Venue;
+import com.demo.entity.vo.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -24,6 +25,14 @@ public interface VenueService {
     Page<Venue> findAll(Pageable pageable);
 
     List<Venue> findAll();
+
+    /**
+     * 按id游标分页查看场馆
+     * @param after 上一页返回的游标，为空时返回第一页
+     * @param size
+     * @return
+     */
+    KeysetPage<Venue> findAll(String after,int size);
     /**
      * 创建新的场馆
      *
@@ -47,4 +56,16 @@ public interface VenueService {
     void delById(int id);
 
     int countVenueName(String venueName);
+
+    /**
+     * 场馆总数
+     * @return
+     */
+    long countAll();
+
+    /**
+     * 场馆列表的版本号，场馆有修改时变化
+     * @return
+     */
+    long version();
 }
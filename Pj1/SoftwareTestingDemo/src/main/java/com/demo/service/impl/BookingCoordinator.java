@@ -0,0 +1,79 @@
+package com.demo.service.impl;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 按场馆串行化订单写操作
+ * 使用分段锁表，同一场馆的冲突检查和写入互斥，不同场馆基本互不阻塞，没有全局锁。
+ */
+@Component
+public class BookingCoordinator {
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public BookingCoordinator() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 持有场馆锁执行
+     */
+    public <T> T withVenue(int venueID, Supplier<T> action) {
+        ReentrantLock lock = lock(venueID);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void withVenue(int venueID, Runnable action) {
+        withVenue(venueID, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 同时持有两个场馆的锁执行(订单换场馆时使用)，按固定顺序加锁避免死锁
+     */
+    public <T> T withVenues(int venueID1, int venueID2, Supplier<T> action) {
+        ReentrantLock first = lock(venueID1);
+        ReentrantLock second = lock(venueID2);
+        if (first == second) {
+            return withVenue(venueID1, action);
+        }
+        if (stripe(venueID1) > stripe(venueID2)) {
+            ReentrantLock tmp = first;
+            first = second;
+            second = tmp;
+        }
+        first.lock();
+        try {
+            second.lock();
+            try {
+                return action.get();
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    private ReentrantLock lock(int venueID) {
+        return locks[stripe(venueID)];
+    }
+
+    private static int stripe(int venueID) {
+        int h = venueID * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,49 @@
+package com.demo.service.impl;
+
+import com.demo.cache.VenueCache;
+import com.demo.service.CacheStatsService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class CacheStatsServiceImpl implements CacheStatsService {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private VenueCache venueCache;
+
+    @Override
+    public Map<String,Map<String,Long>> regionStats() {
+        Map<String,Map<String,Long>> result=new LinkedHashMap<>();
+        Statistics statistics=entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String[] regions=statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regions);
+        for(String region:regions) {
+            CacheRegionStatistics stats=statistics.getCacheRegionStatistics(region);
+            if(stats!=null) {
+                Map<String,Long> regionStats=stats(stats.getHitCount(),stats.getMissCount());
+                regionStats.put("put",stats.getPutCount());
+                result.put(region,regionStats);
+            }
+        }
+        result.put("venue-service",stats(venueCache.getHits(),venueCache.getMisses()));
+        return result;
+    }
+
+    private static Map<String,Long> stats(long hit, long miss) {
+        Map<String,Long> stats=new LinkedHashMap<>();
+        stats.put("hit",hit);
+        stats.put("miss",miss);
+        stats.put("hitRatio",hit+miss==0?0:hit*1000/(hit+miss));
+        return stats;
+    }
+}
@@ -0,0 +1,180 @@
+package com.demo.service.impl;
+
+import com.demo.service.CredentialService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 密码哈希和校验
+ * 使用bcrypt，强度可配置；校验在固定大小的线程池中执行，队列满或等待超时时直接失败，
+ * 登录高峰时最多占用login-threads个CPU，不会拖住全部请求线程。
+ */
+@Service
+public class CredentialServiceImpl implements CredentialService {
+    private static final String ID="bcrypt";
+    private static final String PREFIX="{"+ID+"}";
+
+    /**
+     * bcrypt强度(log2轮数)，每加1耗时翻倍
+     */
+    @Value("${demo.security.bcrypt-strength:10}")
+    private int strength=10;
+
+    /**
+     * 校验线程数，默认为CPU核数
+     */
+    @Value("${demo.security.login-threads:0}")
+    private int threads;
+
+    @Value("${demo.security.login-queue:256}")
+    private int queueSize=256;
+
+    @Value("${demo.security.login-timeout-ms:2000}")
+    private long timeoutMillis=2000;
+
+    private PasswordEncoder encoder;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        DelegatingPasswordEncoder delegating=new DelegatingPasswordEncoder(ID,
+                Collections.singletonMap(ID,new BCryptPasswordEncoder(strength)));
+        delegating.setDefaultPasswordEncoderForMatches(new LegacyPlainText());
+        encoder=delegating;
+        int size=threads>0?threads:Runtime.getRuntime().availableProcessors();
+        AtomicInteger count=new AtomicInteger();
+        executor=new ThreadPoolExecutor(size,size,0,TimeUnit.MILLISECONDS,new ArrayBlockingQueue<>(queueSize),r->{
+            Thread thread=new Thread(r,"credential-"+count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        },new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(String rawPassword) {
+        return encoder.encode(rawPassword);
+    }
+
+    @Override
+    public List<String> encodeAll(List<String> rawPasswords) {
+        int limit=executor.getMaximumPoolSize();
+        List<Future<String>> futures=new ArrayList<>(rawPasswords.size());
+        for(String rawPassword:rawPasswords) {
+            if(futures.size()>=limit) {
+                // 等最早提交的一个完成再提交下一个，队列中最多有limit个哈希任务
+                await(futures.get(futures.size()-limit));
+            }
+            if(rawPassword==null) {
+                futures.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            try {
+                futures.add(executor.submit(()->encode(rawPassword)));
+            } catch (RejectedExecutionException e) {
+                futures.add(CompletableFuture.completedFuture(encode(rawPassword)));
+            }
+        }
+        List<String> encoded=new ArrayList<>(futures.size());
+        for(Future<String> future:futures) {
+            encoded.add(await(future));
+        }
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String storedPassword) {
+        if(rawPassword==null||storedPassword==null) {
+            return false;
+        }
+        Future<Boolean> result;
+        try {
+            result=executor.submit(()->verify(rawPassword,storedPassword));
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("登录繁忙，请稍后再试");
+        }
+        try {
+            return result.get(timeoutMillis,TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new RuntimeException("登录繁忙，请稍后再试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("登录被中断");
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public boolean needsUpgrade(String storedPassword) {
+        return storedPassword==null||!isEncoded(storedPassword)||encoder.upgradeEncoding(storedPassword);
+    }
+
+    @Override
+    public boolean isEncoded(String password) {
+        return password!=null&&password.startsWith(PREFIX);
+    }
+
+    private static String await(Future<String> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("密码哈希被中断");
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private boolean verify(String rawPassword, String storedPassword) {
+        if(!isEncoded(storedPassword)) {
+            // 明文密码恰好以{xxx}开头时DelegatingPasswordEncoder会当成未知算法
+            return LegacyPlainText.equal(rawPassword,storedPassword);
+        }
+        return encoder.matches(rawPassword,storedPassword);
+    }
+
+    /**
+     * 迁移前保存的明文密码，只用于校验，按常量时间比较
+     */
+    private static class LegacyPlainText implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            throw new UnsupportedOperationException("不再保存明文密码");
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String storedPassword) {
+            return equal(rawPassword.toString(),storedPassword);
+        }
+
+        static boolean equal(String rawPassword, String storedPassword) {
+            return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),storedPassword.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,18 +1,49 @@
 package com.demo.service.impl;
 
+import com.demo.cache.ContentChangedEvent;
+import com.demo.cache.ContentVersions;
+import com.demo.cache.EntityCounter;
 import com.demo.dao.MessageDao;
 import com.demo.entity.Message;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.service.MessageService;
+import com.demo.utils.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class MessageServiceImpl implements MessageService {
+    private static final int BATCH_SIZE=500;
+
     @Autowired
     private MessageDao messageDao;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityCounter entityCounter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
     @Override
     public Message findById(int messageID) {
         return messageDao.getOne(messageID);
@@ -27,35 +58,54 @@ public class MessageServiceImpl implements MessageService {
 
     @Override
     public int create(Message message) {
-        return messageDao.save(message).getMessageID();
+        int messageID=messageDao.save(message).getMessageID();
+        entityCounter.increment(EntityCounter.message(message.getState()));
+        return messageID;
     }
 
     @Override
     public void delById(int messageID) {
+        Message message=messageDao.findByMessageID(messageID);
         messageDao.deleteById(messageID);
+        if(message!=null) {
+            entityCounter.decrement(EntityCounter.message(message.getState()));
+            if(message.getState()==STATE_PASS) {
+                changed();
+            }
+        }
     }
 
     @Override
     public void update(Message message) {
         messageDao.save(message);
+        // 修改留言会重置审核状态，原状态未知，各状态计数重新加载
+        entityCounter.invalidatePrefix(EntityCounter.MESSAGE);
+        changed();
     }
 
     @Override
     public void confirmMessage(int messageID) {
-        Message message=messageDao.findByMessageID(messageID);
-        if(message==null) {
-            throw new RuntimeException("留言不存在");
-        }
-        messageDao.updateState(STATE_PASS,message.getMessageID());
+        changeState(messageID,STATE_NO_AUDIT,STATE_PASS);
+        changed();
     }
 
     @Override
     public void rejectMessage(int messageID) {
-        Message message=messageDao.findByMessageID(messageID);
-        if(message==null) {
-            throw new RuntimeException("留言不存在");
+        changeState(messageID,STATE_NO_AUDIT,STATE_REJECT);
+    }
+
+    @Override
+    public Map<Integer,Boolean> confirmMessages(List<Integer> messageIDs) {
+        Map<Integer,Boolean> result=changeStates(messageIDs,STATE_NO_AUDIT,STATE_PASS);
+        if(result.containsValue(true)) {
+            changed();
         }
-        messageDao.updateState(STATE_REJECT,message.getMessageID());
+        return result;
+    }
+
+    @Override
+    public Map<Integer,Boolean> rejectMessages(List<Integer> messageIDs) {
+        return changeStates(messageIDs,STATE_NO_AUDIT,STATE_REJECT);
     }
 
     @Override
@@ -68,4 +118,93 @@ public class MessageServiceImpl implements MessageService {
         return messageDao.findAllByState(STATE_PASS,pageable);
     }
 
+    @Override
+    public KeysetPage<Message> findWaitState(String after, int size) {
+        return findByState(STATE_NO_AUDIT,after,size);
+    }
+
+    @Override
+    public KeysetPage<Message> findPassState(String after, int size) {
+        return findByState(STATE_PASS,after,size);
+    }
+
+    @Override
+    public long countWaitState() {
+        return entityCounter.get(EntityCounter.message(STATE_NO_AUDIT),()->messageDao.countByState(STATE_NO_AUDIT));
+    }
+
+    @Override
+    public long countPassState() {
+        return entityCounter.get(EntityCounter.message(STATE_PASS),()->messageDao.countByState(STATE_PASS));
+    }
+
+    @Override
+    public long version() {
+        return contentVersions.get(ContentChangedEvent.Content.MESSAGE);
+    }
+
+    /**
+     * 审核通过的留言会显示在首页
+     */
+    private void changed() {
+        eventPublisher.publishEvent(new ContentChangedEvent(this,ContentChangedEvent.Content.MESSAGE));
+    }
+
+    private KeysetPage<Message> findByState(int state, String after, int size) {
+        // 多取一条用来判断是否还有下一页
+        Pageable limit=PageRequest.of(0,size+1);
+        List<Message> messages;
+        if(CursorUtil.isEmpty(after)) {
+            messages=messageDao.findAllByStateOrderByTimeDescMessageIDDesc(state,limit);
+        } else {
+            String[] key=CursorUtil.decode(after,2);
+            messages=messageDao.findAllByStateAfter(state,LocalDateTime.parse(key[0]),Integer.parseInt(key[1]),limit);
+        }
+        return CursorUtil.page(messages,size,m->new Object[]{m.getTime(),m.getMessageID()});
+    }
+
+    /**
+     * 以当前状态为条件修改留言状态，一条语句完成
+     */
+    private void changeState(int messageID, int expectedState, int state) {
+        if(messageDao.updateStateIfCurrent(messageID,expectedState,state)==0) {
+            if(messageDao.findByMessageID(messageID)==null) {
+                throw new RuntimeException("留言不存在");
+            }
+            throw new RuntimeException("留言状态已改变");
+        }
+        entityCounter.move(EntityCounter.message(expectedState),EntityCounter.message(state),1);
+    }
+
+    /**
+     * 在一个事务中分块批量修改留言状态，每块先锁定留言再执行一条update
+     * @return 每条留言是否修改成功
+     */
+    private Map<Integer,Boolean> changeStates(List<Integer> messageIDs, int expectedState, int state) {
+        List<Integer> ids=new ArrayList<>(new LinkedHashSet<>(messageIDs));
+        Set<Integer> won=new HashSet<>();
+        transactionTemplate.execute(status->{
+            for(int i=0;i<ids.size();i+=BATCH_SIZE) {
+                List<Integer> chunk=ids.subList(i,Math.min(i+BATCH_SIZE,ids.size()));
+                List<Integer> matched=new ArrayList<>();
+                for(Message message:messageDao.findAllByMessageIDIn(chunk)) {
+                    if(message.getState()==expectedState) {
+                        matched.add(message.getMessageID());
+                    }
+                }
+                if(!matched.isEmpty()) {
+                    messageDao.updateStatesIfCurrent(matched,expectedState,state);
+                    won.addAll(matched);
+                }
+            }
+            return null;
+        });
+        entityCounter.move(EntityCounter.message(expectedState),EntityCounter.message(state),won.size());
+        Map<Integer,Boolean> result=new LinkedHashMap<>();
+        for(Integer id:ids) {
+            result.put(id,won.contains(id));
+        }
+        return result;
+    }
+
 }
@@ -10,7 +10,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class MessageVoServiceImpl implements MessageVoService {
@@ -23,17 +27,34 @@ public class MessageVoServiceImpl implements MessageVoService {
     public MessageVo returnMessageVoByMessageID(int messageID) {
         Message message=messageDao.findByMessageID(messageID);
         User user=userDao.findByUserID(message.getUserID());
-        MessageVo messageVo=new MessageVo(message.getMessageID(),user.getUserID(),message.getContent(),message.getTime(),user.getUserName(),user.getPicture(),message.getState());
-
-        return messageVo;
+        return toMessageVo(message,user);
     }
 
+    /**
+     * 直接使用已加载的留言组装，留言作者按userID一次性查出
+     */
     @Override
     public List<MessageVo> returnVo(List<Message> messages) {
-        List<MessageVo> list=new ArrayList<>();
-        for(int i=0;i<messages.size();i++){
-            list.add(returnMessageVoByMessageID(messages.get(i).getMessageID()));
+        List<MessageVo> list=new ArrayList<>(messages.size());
+        if(messages.isEmpty()) {
+            return list;
+        }
+        Set<String> userIDs=new HashSet<>();
+        for(Message message:messages) {
+            userIDs.add(message.getUserID());
+        }
+        Map<String,User> users=new HashMap<>();
+        for(User user:userDao.findAllByUserIDIn(userIDs)) {
+            users.put(user.getUserID(),user);
+        }
+        for(Message message:messages) {
+            list.add(toMessageVo(message,users.get(message.getUserID())));
         }
         return list;
     }
+
+    private MessageVo toMessageVo(Message message, User user) {
+        return new MessageVo(message.getMessageID(),message.getUserID(),message.getContent(),message.getTime(),
+                             user==null?null:user.getUserName(),user==null?null:user.getPicture(),message.getState());
+    }
 }
@@ -0,0 +1,32 @@
+package com.demo.service.impl;
+
+import com.demo.metrics.EndpointMetrics;
+import com.demo.service.MetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+@Service
+public class MetricsServiceImpl implements MetricsService {
+    @Autowired
+    private EndpointMetrics endpointMetrics;
+
+    @Override
+    public Map<String,Map<String,Object>> endpointStats() {
+        return endpointMetrics.snapshot();
+    }
+
+    @Override
+    public int getLogSampleRate() {
+        return endpointMetrics.getLogSampleRate();
+    }
+
+    @Override
+    public void setLogSampleRate(int sampleRate) {
+        if(sampleRate<0) {
+            throw new RuntimeException("采样率不能为负数");
+        }
+        endpointMetrics.setLogSampleRate(sampleRate);
+    }
+}
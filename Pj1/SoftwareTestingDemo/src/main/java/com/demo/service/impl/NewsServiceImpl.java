@@ -1,23 +1,53 @@
 package com.demo.service.impl;
 
+import com.demo.cache.ContentChangedEvent;
+import com.demo.cache.ContentVersions;
+import com.demo.cache.EntityCounter;
 import com.demo.dao.NewsDao;
 import com.demo.entity.News;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.service.NewsService;
+import com.demo.utils.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Service
 public class NewsServiceImpl implements NewsService {
     @Autowired
     private NewsDao newsDao;
+    @Autowired
+    private EntityCounter entityCounter;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ContentVersions contentVersions;
 
     @Override
     public Page<News> findAll(Pageable pageable) {
         return newsDao.findAll(pageable);
     }
 
+    @Override
+    public KeysetPage<News> findAll(String after, int size) {
+        // 多取一条用来判断是否还有下一页
+        Pageable limit=PageRequest.of(0,size+1);
+        List<News> news;
+        if(CursorUtil.isEmpty(after)) {
+            news=newsDao.findAllByOrderByTimeDescNewsIDDesc(limit);
+        } else {
+            String[] key=CursorUtil.decode(after,2);
+            news=newsDao.findAllAfter(LocalDateTime.parse(key[0]),Integer.parseInt(key[1]),limit);
+        }
+        return CursorUtil.page(news,size,n->new Object[]{n.getTime(),n.getNewsID()});
+    }
+
     @Override
     public News findById(int newsID) {
         return newsDao.getOne(newsID);
@@ -25,16 +55,36 @@ public class NewsServiceImpl implements NewsService {
 
     @Override
     public int create(News news) {
-        return newsDao.save(news).getNewsID();
+        int newsID=newsDao.save(news).getNewsID();
+        entityCounter.increment(EntityCounter.NEWS);
+        changed();
+        return newsID;
     }
 
     @Override
     public void delById(int newsID) {
         newsDao.deleteById(newsID);
+        entityCounter.decrement(EntityCounter.NEWS);
+        changed();
     }
 
     @Override
     public void update(News news) {
         newsDao.save(news);
+        changed();
+    }
+
+    @Override
+    public long countAll() {
+        return entityCounter.get(EntityCounter.NEWS,newsDao::count);
+    }
+
+    @Override
+    public long version() {
+        return contentVersions.get(ContentChangedEvent.Content.NEWS);
+    }
+
+    private void changed() {
+        eventPublisher.publishEvent(new ContentChangedEvent(this,ContentChangedEvent.Content.NEWS));
     }
 }
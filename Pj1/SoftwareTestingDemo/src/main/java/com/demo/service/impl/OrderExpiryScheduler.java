@@ -0,0 +1,101 @@
+package com.demo.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单到期检查的优先队列
+ * 按到期时间保存(订单ID,到期时间)，后台线程每隔tick-ms取出所有到期的订单交给处理函数批量处理。
+ * 队列中只是"到时检查"的提醒，订单被修改或已经处理过时处理函数会重新读取状态，过时的提醒没有副作用。
+ */
+@Slf4j
+@Component
+public class OrderExpiryScheduler {
+    @Value("${demo.order.expiry-tick-ms:60000}")
+    private long tickMillis=60000;
+
+    private final PriorityQueue<Entry> queue=new PriorityQueue<>();
+    private ScheduledExecutorService executor;
+
+    private static class Entry implements Comparable<Entry> {
+        final LocalDateTime due;
+        final int orderID;
+
+        Entry(LocalDateTime due, int orderID) {
+            this.due=due;
+            this.orderID=orderID;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return due.compareTo(other.due);
+        }
+    }
+
+    /**
+     * 在due时检查订单
+     */
+    public synchronized void schedule(int orderID, LocalDateTime due) {
+        queue.add(new Entry(due,orderID));
+    }
+
+    /**
+     * 取出到期时间不晚于now的订单ID，同一订单只返回一次
+     */
+    public synchronized List<Integer> pollDue(LocalDateTime now) {
+        LinkedHashSet<Integer> ids=new LinkedHashSet<>();
+        while(!queue.isEmpty()&&!queue.peek().due.isAfter(now)) {
+            ids.add(queue.poll().orderID);
+        }
+        return new ArrayList<>(ids);
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    public synchronized void clear() {
+        queue.clear();
+    }
+
+    /**
+     * 启动后台线程，定期执行task
+     */
+    public synchronized void start(Runnable task) {
+        if(executor!=null) {
+            return;
+        }
+        executor=Executors.newSingleThreadScheduledExecutor(r->{
+            Thread thread=new Thread(r,"order-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(()->{
+            // 异常会使后续执行被取消，这里只记录
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("order expiry failed",e);
+            }
+        },0,tickMillis,TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if(executor!=null) {
+            executor.shutdownNow();
+            executor=null;
+        }
+    }
+}
@@ -1,28 +1,112 @@
 package com.demo.service.impl;
 
+import com.demo.cache.EntityCounter;
+import com.demo.cache.NameIndex;
+import com.demo.cache.VenueCache;
+import com.demo.cache.VenueAvailabilityIndex;
+import com.demo.dao.OrderArchiveDao;
 import com.demo.dao.OrderDao;
 
 import com.demo.dao.VenueDao;
+import com.demo.entity.ArchivedOrder;
 import com.demo.entity.Venue;
 import com.demo.entity.Order;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.service.OrderService;
+import com.demo.service.OrderStateMachine;
+import com.demo.utils.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class OrderServiceImpl implements OrderService {
+    private static final int BATCH_SIZE=500;
+    private static final List<Integer> AUDIT_STATES=Arrays.asList(STATE_WAIT,STATE_FINISH);
+    private static final List<Integer> PENDING_STATES=Arrays.asList(STATE_NO_AUDIT,STATE_WAIT);
+    private static final List<Integer> FINAL_STATES=Arrays.asList(STATE_FINISH,STATE_REJECT);
+    private static final int ARCHIVED_USER_CAPACITY=100000;
+    private static final Comparator<Order> NEWEST_FIRST=Comparator.comparing(Order::getOrderTime).thenComparingInt(Order::getOrderID).reversed();
+
     @Autowired
     private OrderDao orderDao;
 
+    @Autowired
+    private OrderArchiveDao orderArchiveDao;
+
     @Autowired
     private VenueDao venueDao;
 
+    @Autowired
+    private VenueCache venueCache;
+
+    @Autowired
+    private VenueAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private BookingCoordinator bookingCoordinator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityCounter entityCounter;
+
+    @Autowired
+    private OrderExpiryScheduler expiryScheduler;
+
+    /**
+     * 已完成、失效的订单下单超过这么多天后归档
+     */
+    @Value("${demo.order.archive-after-days:90}")
+    private int archiveAfterDays=90;
+
+    /**
+     * 有归档订单的userID
+     */
+    private final NameIndex archivedUsers=new NameIndex(ARCHIVED_USER_CAPACITY);
+
+    /**
+     * 启动后把未审核和已审核的订单放入到期队列，之后定期自动拒绝、完成
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startExpiry() {
+        for(Object[] row:orderDao.findSchedule(PENDING_STATES)) {
+            expiryScheduler.schedule((Integer) row[0],due((Integer) row[1],(LocalDateTime) row[2],(Integer) row[3]));
+        }
+        expiryScheduler.start(this::expireOrders);
+    }
+
+    /**
+     * 启动后加载有归档订单的userID
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadArchivedUsers() {
+        archivedUsers.rebuild(orderArchiveDao::findAllUserIDs);
+    }
+
     @Override
     public Order findById(int OrderID) {
         return orderDao.getOne(OrderID);
@@ -33,73 +117,337 @@ public class OrderServiceImpl implements OrderService {
         return orderDao.findByVenueIDAndStartTimeIsBetween(venueID,startTime,startTime2);
     }
 
+    @Override
+    public int findOccupiedHours(int venueID, LocalDate date) {
+        return availabilityIndex.occupied(venueID,date);
+    }
+
+    /**
+     * 未审核、已审核的订单不归档，可能比归档的订单还早，所以两张表各取前offset+size条按(下单时间,orderID)倒序合并。
+     * 没有归档订单的用户只查询order表。
+     */
     @Override
     public Page<Order> findUserOrder(String userID, Pageable pageable) {
-        return orderDao.findAllByUserID(userID,pageable);
+        if(!hasArchivedOrders(userID)) {
+            return orderDao.findAllByUserID(userID,pageable);
+        }
+        int offset=(int) pageable.getOffset();
+        Pageable top=PageRequest.of(0,offset+pageable.getPageSize());
+        List<Order> orders=merge(orderDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(userID,top),
+                orderArchiveDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(userID,top),top.getPageSize());
+        long total=orderDao.countByUserID(userID)+orderArchiveDao.countByUserID(userID);
+        return new PageImpl<>(orders.subList(Math.min(offset,orders.size()),orders.size()),pageable,total);
     }
 
+    /**
+     * 两张表用同一个游标各取size+1条，合并后多出的一条用来判断是否还有下一页
+     */
+    @Override
+    public KeysetPage<Order> findUserOrder(String userID, String after, int size) {
+        Pageable limit=PageRequest.of(0,size+1);
+        boolean archived=hasArchivedOrders(userID);
+        List<Order> orders;
+        List<ArchivedOrder> rows=Collections.emptyList();
+        if(CursorUtil.isEmpty(after)) {
+            orders=orderDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(userID,limit);
+            if(archived) {
+                rows=orderArchiveDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(userID,limit);
+            }
+        } else {
+            String[] key=CursorUtil.decode(after,2);
+            LocalDateTime orderTime=LocalDateTime.parse(key[0]);
+            int orderID=Integer.parseInt(key[1]);
+            orders=orderDao.findAllByUserIDAfter(userID,orderTime,orderID,limit);
+            if(archived) {
+                rows=orderArchiveDao.findAllByUserIDAfter(userID,orderTime,orderID,limit);
+            }
+        }
+        return CursorUtil.page(merge(orders,rows,size+1),size,o->new Object[]{o.getOrderTime(),o.getOrderID()});
+    }
 
+    /**
+     * 用户是否可能有归档订单，一定没有时不查询数据库
+     */
+    private boolean hasArchivedOrders(String userID) {
+        return archivedUsers.count(userID,id->orderArchiveDao.existsByUserID(id)?1:0)>0;
+    }
+
+    /**
+     * 两个都按(下单时间,orderID)倒序的列表合并，最多保留limit条
+     */
+    private static List<Order> merge(List<Order> orders, List<ArchivedOrder> rows, int limit) {
+        if(rows.isEmpty()) {
+            return orders;
+        }
+        List<Order> merged=new ArrayList<>(orders.size()+rows.size());
+        merged.addAll(orders);
+        for(ArchivedOrder row:rows) {
+            merged.add(row.toOrder());
+        }
+        merged.sort(NEWEST_FIRST);
+        return merged.size()>limit?merged.subList(0,limit):merged;
+    }
+
+    /**
+     * 持有原场馆和新场馆的锁，在事务中锁定订单行后重新读取，以读到的状态为条件写入
+     * 加锁前订单被改到其他场馆时按新场馆重试
+     */
     @Override
     public void updateOrder(int orderID, String venueName, LocalDateTime startTime, int hours,String userID)  {
-        Venue venue =venueDao.findByVenueName(venueName);
-        Order order=orderDao.findByOrderID(orderID);
-        order.setState(STATE_NO_AUDIT);
-        order.setHours(hours);
-        order.setVenueID(venue.getVenueID());
-        order.setOrderTime(LocalDateTime.now());
-        order.setStartTime(startTime);
-        order.setUserID(userID);
-        order.setTotal(hours* venue.getPrice());
-
-        orderDao.save(order);
+        Venue venue =venueCache.getByName(venueName,venueDao::findByVenueName);
+        while(true) {
+            Order current=orderDao.findByOrderID(orderID);
+            if(current == null) {
+                throw new RuntimeException("订单不存在");
+            }
+            int venueID=current.getVenueID();
+            boolean done=bookingCoordinator.withVenues(venueID,venue.getVenueID(),()->{
+                LocalDateTime orderTime=LocalDateTime.now();
+                Order old=transactionTemplate.execute(status->{
+                    Order order=lockOrder(orderID);
+                    if(order.getVenueID()!=venueID) {
+                        return null;
+                    }
+                    Order snapshot=copy(order);
+                    OrderStateMachine.check(snapshot.getState(),STATE_NO_AUDIT);
+                    if(availabilityIndex.hasConflict(venue.getVenueID(),startTime,hours,snapshot)) {
+                        throw new RuntimeException("该时段已被预订");
+                    }
+                    if(orderDao.updateIfState(orderID,snapshot.getState(),STATE_NO_AUDIT,venue.getVenueID(),startTime,hours,
+                                              orderTime,userID,hours* venue.getPrice())==0) {
+                        throw new RuntimeException("订单状态已改变");
+                    }
+                    return snapshot;
+                });
+                if(old == null) {
+                    return false;
+                }
+                Order order=new Order(orderID,userID,venue.getVenueID(),STATE_NO_AUDIT,orderTime,startTime,hours,hours* venue.getPrice());
+                availabilityIndex.remove(old);
+                availabilityIndex.add(order);
+                entityCounter.move(EntityCounter.order(old.getState()),EntityCounter.order(STATE_NO_AUDIT),1);
+                expiryScheduler.schedule(orderID,startTime);
+                return true;
+            });
+            if(done) {
+                return;
+            }
+        }
     }
 
     @Override
     public void submit(String venueName, LocalDateTime startTime, int hours, String userID) {
 
-        Venue venue =venueDao.findByVenueName(venueName);
+        Venue venue =venueCache.getByName(venueName,venueDao::findByVenueName);
+        bookingCoordinator.withVenue(venue.getVenueID(),()->{
+            if(availabilityIndex.hasConflict(venue.getVenueID(),startTime,hours)) {
+                throw new RuntimeException("该时段已被预订");
+            }
 
-        Order order=new Order();
-        order.setState(STATE_NO_AUDIT);
-        order.setHours(hours);
-        order.setVenueID(venue.getVenueID());
-        order.setOrderTime(LocalDateTime.now());
-        order.setStartTime(startTime);
-        order.setUserID(userID);
-        order.setTotal(hours* venue.getPrice());
-        orderDao.save(order);
+            Order order=new Order();
+            order.setState(STATE_NO_AUDIT);
+            order.setHours(hours);
+            order.setVenueID(venue.getVenueID());
+            order.setOrderTime(LocalDateTime.now());
+            order.setStartTime(startTime);
+            order.setUserID(userID);
+            order.setTotal(hours* venue.getPrice());
+            orderDao.save(order);
+            availabilityIndex.add(order);
+            entityCounter.increment(EntityCounter.order(STATE_NO_AUDIT));
+            expiryScheduler.schedule(order.getOrderID(),startTime);
+        });
     }
 
     @Override
     public void delOrder(int orderID) {
-        orderDao.deleteById(orderID);
+        Order order=orderDao.findByOrderID(orderID);
+        if(order == null) {
+            ArchivedOrder archived=orderArchiveDao.findById(orderID).orElse(null);
+            if(archived != null) {
+                orderArchiveDao.deleteById(orderID);
+                archivedUsers.remove(archived.getUserID());
+                return;
+            }
+            orderDao.deleteById(orderID);
+            return;
+        }
+        bookingCoordinator.withVenue(order.getVenueID(),()->{
+            orderDao.deleteById(orderID);
+            availabilityIndex.remove(order);
+        });
+        entityCounter.decrement(EntityCounter.order(order.getState()));
     }
 
     @Override
     public void confirmOrder(int orderID) {
-        Order order=orderDao.findByOrderID(orderID);
-        if(order == null) {
-            throw new RuntimeException("订单不存在");
-        }
-        orderDao.updateState(STATE_WAIT,order.getOrderID());
+        changeState(orderID,STATE_NO_AUDIT,STATE_WAIT);
     }
 
     @Override
     public void finishOrder(int orderID) {
-        Order order=orderDao.findByOrderID(orderID);
-        if(order == null) {
-            throw new RuntimeException("订单不存在");
-        }
-        orderDao.updateState(STATE_FINISH,order.getOrderID());
+        changeState(orderID,STATE_WAIT,STATE_FINISH);
     }
 
+    /**
+     * 未审核和已审核的订单都可以拒绝
+     * 持有场馆锁，在事务中锁定订单行后以读到的状态为条件修改，修改成功并提交后才释放时段
+     */
     @Override
     public void rejectOrder(int orderID) {
-        Order order=orderDao.findByOrderID(orderID);
-        if(order == null) {
-            throw new RuntimeException("订单不存在");
+        while(true) {
+            Order current=orderDao.findByOrderID(orderID);
+            if(current == null) {
+                throw new RuntimeException("订单不存在");
+            }
+            int venueID=current.getVenueID();
+            Order rejected=bookingCoordinator.withVenue(venueID,()->{
+                Order old=transactionTemplate.execute(status->{
+                    Order order=lockOrder(orderID);
+                    if(order.getVenueID()!=venueID) {
+                        return null;
+                    }
+                    Order snapshot=copy(order);
+                    OrderStateMachine.check(snapshot.getState(),STATE_REJECT);
+                    if(orderDao.updateStateIfCurrent(orderID,snapshot.getState(),STATE_REJECT)==0) {
+                        throw new RuntimeException("订单状态已改变");
+                    }
+                    return snapshot;
+                });
+                if(old != null) {
+                    availabilityIndex.remove(old);
+                }
+                return old;
+            });
+            if(rejected != null) {
+                entityCounter.move(EntityCounter.order(rejected.getState()),EntityCounter.order(STATE_REJECT),1);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Map<Integer,Boolean> confirmOrders(List<Integer> orderIDs) {
+        return changeStates(orderIDs,STATE_NO_AUDIT,STATE_WAIT);
+    }
+
+    @Override
+    public Map<Integer,Boolean> rejectOrders(List<Integer> orderIDs) {
+        Map<Integer,Boolean> result=new LinkedHashMap<>();
+        for(Order order:changeStates(orderIDs,STATE_NO_AUDIT,STATE_REJECT,result)) {
+            bookingCoordinator.withVenue(order.getVenueID(),()->availabilityIndex.remove(order));
+        }
+        return result;
+    }
+
+    @Override
+    public int expireOrders() {
+        return expireOrders(LocalDateTime.now());
+    }
+
+    /**
+     * 处理到期的订单：开始时仍未审核的拒绝，结束时间已过的已审核订单完成，时间被修改后还未到期的重新放回队列。
+     * 每块先锁定订单，拒绝和完成各执行一条update。
+     * @return 自动拒绝和完成的订单数
+     */
+    int expireOrders(LocalDateTime now) {
+        List<Integer> ids=expiryScheduler.pollDue(now);
+        if(ids.isEmpty()) {
+            return 0;
+        }
+        List<Order> rejected=new ArrayList<>();
+        List<Order> finished=new ArrayList<>();
+        List<Order> later=new ArrayList<>();
+        try {
+            transactionTemplate.execute(status->{
+                for(int i=0;i<ids.size();i+=BATCH_SIZE) {
+                    List<Integer> chunk=ids.subList(i,Math.min(i+BATCH_SIZE,ids.size()));
+                    List<Integer> reject=new ArrayList<>();
+                    List<Integer> finish=new ArrayList<>();
+                    for(Order order:orderDao.findAllByOrderIDIn(chunk)) {
+                        if(OrderStateMachine.isFinal(order.getState())) {
+                            continue;
+                        }
+                        if(due(order).isAfter(now)) {
+                            later.add(order);
+                        } else if(order.getState()==STATE_NO_AUDIT) {
+                            reject.add(order.getOrderID());
+                            rejected.add(order);
+                        } else {
+                            finish.add(order.getOrderID());
+                            finished.add(order);
+                        }
+                    }
+                    if(!reject.isEmpty()) {
+                        orderDao.updateStatesIfCurrent(reject,STATE_NO_AUDIT,STATE_REJECT);
+                    }
+                    if(!finish.isEmpty()) {
+                        orderDao.updateStatesIfCurrent(finish,STATE_WAIT,STATE_FINISH);
+                    }
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // 事务回滚，下次再处理
+            for(Integer id:ids) {
+                expiryScheduler.schedule(id,now);
+            }
+            throw e;
+        }
+        for(Order order:later) {
+            expiryScheduler.schedule(order.getOrderID(),due(order));
+        }
+        entityCounter.move(EntityCounter.order(STATE_NO_AUDIT),EntityCounter.order(STATE_REJECT),rejected.size());
+        entityCounter.move(EntityCounter.order(STATE_WAIT),EntityCounter.order(STATE_FINISH),finished.size());
+        for(Order order:rejected) {
+            bookingCoordinator.withVenue(order.getVenueID(),()->availabilityIndex.remove(order));
+        }
+        return rejected.size()+finished.size();
+    }
+
+    @Scheduled(initialDelayString="${demo.order.archive-interval-ms:3600000}",fixedDelayString="${demo.order.archive-interval-ms:3600000}")
+    public void scheduledArchive() {
+        archiveOrders();
+    }
+
+    @Override
+    public int archiveOrders() {
+        return archiveOrders(LocalDateTime.now().minusDays(archiveAfterDays));
+    }
+
+    /**
+     * 把下单时间和开始时间都早于before的已完成、失效订单分批移到归档表
+     * 每批一个事务：查询、insert ... select、delete各一条语句。
+     * 只归档时段已经过去的订单，时段在之后才开始的已完成订单留在order表，因此不需要修改时段占用。
+     * @return 归档的订单数
+     */
+    int archiveOrders(LocalDateTime before) {
+        int total=0;
+        while(true) {
+            Map<Integer,Integer> states=new LinkedHashMap<>();
+            transactionTemplate.execute(status->{
+                for(Object[] row:orderDao.findArchivable(FINAL_STATES,before,PageRequest.of(0,BATCH_SIZE))) {
+                    states.put((Integer) row[0],(Integer) row[1]);
+                    // 提交前加入，查询不会漏掉刚移走的订单
+                    archivedUsers.add((String) row[2]);
+                }
+                if(!states.isEmpty()) {
+                    orderArchiveDao.copyFromOrders(states.keySet());
+                    orderDao.deleteAllByOrderIDs(states.keySet());
+                }
+                return null;
+            });
+            for(Integer state:states.values()) {
+                entityCounter.decrement(EntityCounter.order(state));
+            }
+            total+=states.size();
+            if(states.size()<BATCH_SIZE) {
+                if(archivedUsers.saturated()) {
+                    loadArchivedUsers();
+                }
+                return total;
+            }
         }
-        orderDao.updateState(STATE_REJECT,order.getOrderID());
     }
 
     @Override
@@ -108,7 +456,108 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    public List<Order> findAuditOrder() {
-        return orderDao.findAudit(STATE_WAIT,STATE_FINISH);
+    public long countNoAuditOrder() {
+        return entityCounter.get(EntityCounter.order(STATE_NO_AUDIT),()->orderDao.countByState(STATE_NO_AUDIT));
+    }
+
+    @Override
+    public KeysetPage<Order> findAuditOrder(String after, int size) {
+        // 多取一条用来判断是否还有下一页
+        Pageable limit=PageRequest.of(0,size+1);
+        List<Order> orders;
+        if(CursorUtil.isEmpty(after)) {
+            orders=orderDao.findAudit(AUDIT_STATES,limit);
+        } else {
+            String[] key=CursorUtil.decode(after,3);
+            orders=orderDao.findAuditAfter(AUDIT_STATES,Integer.parseInt(key[0]),LocalDateTime.parse(key[1]),Integer.parseInt(key[2]),limit);
+        }
+        return CursorUtil.page(orders,size,o->new Object[]{o.getState(),o.getOrderTime(),o.getOrderID()});
+    }
+
+    /**
+     * 持有场馆锁，以当前状态为条件修改订单状态，与修改订单互斥
+     * 确认和完成不改变时段占用，拒绝由调用方释放时段
+     */
+    private void changeState(int orderID, int expectedState, int state) {
+        OrderStateMachine.check(expectedState,state);
+        Order order=orderDao.findByOrderID(orderID);
+        if(order == null) {
+            throw new RuntimeException("订单不存在");
+        }
+        bookingCoordinator.withVenue(order.getVenueID(),()->{
+            if(orderDao.updateStateIfCurrent(orderID,expectedState,state)==0) {
+                throw new RuntimeException("订单状态已改变");
+            }
+        });
+        entityCounter.move(EntityCounter.order(expectedState),EntityCounter.order(state),1);
+    }
+
+    /**
+     * 锁定并读取订单，需在事务中调用
+     */
+    private Order lockOrder(int orderID) {
+        List<Order> locked=orderDao.findAllByOrderIDIn(Collections.singletonList(orderID));
+        if(locked.isEmpty()) {
+            throw new RuntimeException("订单不存在");
+        }
+        return locked.get(0);
+    }
+
+    private static Order copy(Order order) {
+        return new Order(order.getOrderID(),order.getUserID(),order.getVenueID(),order.getState(),
+                         order.getOrderTime(),order.getStartTime(),order.getHours(),order.getTotal());
+    }
+
+    private Map<Integer,Boolean> changeStates(List<Integer> orderIDs, int expectedState, int state) {
+        Map<Integer,Boolean> result=new LinkedHashMap<>();
+        changeStates(orderIDs,expectedState,state,result);
+        return result;
+    }
+
+    /**
+     * 在一个事务中分块批量修改订单状态，每块先锁定订单再执行一条update
+     * @param result 记录每个订单是否修改成功
+     * @return 修改成功的订单
+     */
+    private List<Order> changeStates(List<Integer> orderIDs, int expectedState, int state, Map<Integer,Boolean> result) {
+        OrderStateMachine.check(expectedState,state);
+        List<Integer> ids=new ArrayList<>(new LinkedHashSet<>(orderIDs));
+        List<Order> changed=new ArrayList<>();
+        transactionTemplate.execute(status->{
+            for(int i=0;i<ids.size();i+=BATCH_SIZE) {
+                List<Integer> chunk=ids.subList(i,Math.min(i+BATCH_SIZE,ids.size()));
+                List<Integer> matched=new ArrayList<>();
+                for(Order order:orderDao.findAllByOrderIDIn(chunk)) {
+                    if(order.getState()==expectedState) {
+                        matched.add(order.getOrderID());
+                        changed.add(order);
+                    }
+                }
+                if(!matched.isEmpty()) {
+                    orderDao.updateStatesIfCurrent(matched,expectedState,state);
+                }
+            }
+            return null;
+        });
+        entityCounter.move(EntityCounter.order(expectedState),EntityCounter.order(state),changed.size());
+        Set<Integer> won=new HashSet<>();
+        for(Order order:changed) {
+            won.add(order.getOrderID());
+        }
+        for(Integer id:ids) {
+            result.put(id,won.contains(id));
+        }
+        return changed;
+    }
+
+    /**
+     * 未审核订单在开始时到期，已审核订单在结束时到期
+     */
+    private static LocalDateTime due(int state, LocalDateTime startTime, int hours) {
+        return state==STATE_WAIT?startTime.plusHours(hours):startTime;
+    }
+
+    private static LocalDateTime due(Order order) {
+        return due(order.getState(),order.getStartTime(),order.getHours());
     }
 }
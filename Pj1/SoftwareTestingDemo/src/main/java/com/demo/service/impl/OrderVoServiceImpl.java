@@ -11,7 +11,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class OrderVoServiceImpl implements OrderVoService {
@@ -25,18 +29,34 @@ public class OrderVoServiceImpl implements OrderVoService {
     public OrderVo returnOrderVoByOrderID(int orderID) {
         Order order=orderDao.findByOrderID(orderID);
         Venue venue=venueDao.findByVenueID(order.getVenueID());
-        OrderVo orderVo=new OrderVo(order.getOrderID(),order.getUserID(),order.getVenueID(),venue.getVenueName(),
-                                    order.getState(),order.getOrderTime(),order.getStartTime(),order.getHours(),order.getTotal());
-
-        return orderVo;
+        return toOrderVo(order,venue);
     }
 
+    /**
+     * 直接使用已加载的订单组装，所有场馆一次性查出
+     */
     @Override
     public List<OrderVo> returnVo(List<Order> list) {
-        List<OrderVo> list1=new ArrayList<>();
-        for(int i=0;i<list.size();i++) {
-            list1.add(returnOrderVoByOrderID(list.get(i).getOrderID()));
+        List<OrderVo> list1=new ArrayList<>(list.size());
+        if(list.isEmpty()) {
+            return list1;
+        }
+        Set<Integer> venueIDs=new HashSet<>();
+        for(Order order:list) {
+            venueIDs.add(order.getVenueID());
+        }
+        Map<Integer,Venue> venues=new HashMap<>();
+        for(Venue venue:venueDao.findAllById(venueIDs)) {
+            venues.put(venue.getVenueID(),venue);
+        }
+        for(Order order:list) {
+            list1.add(toOrderVo(order,venues.get(order.getVenueID())));
         }
         return list1;
     }
+
+    private OrderVo toOrderVo(Order order, Venue venue) {
+        return new OrderVo(order.getOrderID(),order.getUserID(),order.getVenueID(),venue==null?null:venue.getVenueName(),
+                           order.getState(),order.getOrderTime(),order.getStartTime(),order.getHours(),order.getTotal());
+    }
 }
@@ -1,17 +1,54 @@
 package com.demo.service.impl;
 
+import com.demo.cache.ContentChangedEvent;
+import com.demo.cache.EntityCounter;
+import com.demo.cache.NameIndex;
 import com.demo.dao.UserDao;
 import com.demo.entity.User;
+import com.demo.entity.vo.KeysetPage;
+import com.demo.service.CredentialService;
 import com.demo.service.UserService;
+import com.demo.utils.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Service
 public class UserServiceImpl implements UserService {
+    private static final int IMPORT_BATCH_SIZE=500;
+    private static final int USER_ID_CAPACITY=100000;
+
     @Autowired
     private UserDao userDao;
+    @Autowired
+    private EntityCounter entityCounter;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private CredentialService credentialService;
+
+    private final NameIndex userIDs=new NameIndex(USER_ID_CAPACITY);
+
+    /**
+     * 启动后加载全部userID
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadUserIDs() {
+        userIDs.rebuild(userDao::findAllUserIDs);
+    }
 
     @Override
     public User findByUserID(String userID) {
@@ -20,7 +57,8 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User findById(int id) {
-        return userDao.findById(id);
+        // 按主键读取，命中二级缓存时不查询数据库
+        return userDao.findById(Integer.valueOf(id)).orElse(null);
     }
 
     @Override
@@ -28,30 +66,139 @@ public class UserServiceImpl implements UserService {
         return userDao.findAllByIsadmin(0,pageable);
     }
 
+    @Override
+    public KeysetPage<User> findByUserID(String after, int size) {
+        int id=CursorUtil.isEmpty(after)?0:Integer.parseInt(CursorUtil.decode(after,1)[0]);
+        List<User> users=userDao.findAllByIsadminAndIdGreaterThanOrderByIdAsc(0,id,PageRequest.of(0,size+1));
+        return CursorUtil.page(users,size,u->new Object[]{u.getId()});
+    }
+
     @Override
     public User checkLogin(String userID, String password) {
-        return userDao.findByUserIDAndPassword(userID,password);
+        User user=userDao.findByUserID(userID);
+        if(user==null||!credentialService.matches(password,user.getPassword())) {
+            return null;
+        }
+        if(credentialService.needsUpgrade(user.getPassword())) {
+            // 第一次登录成功时把明文或旧强度的密码换成当前设置的哈希
+            user.setPassword(credentialService.encode(password));
+            userDao.save(user);
+        }
+        return user;
     }
 
     @Override
     public int create(User user) {
-        userDao.save(user);
-        return userDao.findAll().size();
+        encodePassword(user);
+        int id=userDao.save(user).getId();
+        if(user.getIsadmin()==0) {
+            entityCounter.increment(EntityCounter.USER);
+        }
+        addUserID(user.getUserID());
+        return id;
+    }
+
+    /**
+     * 每块查询一次已存在的userID，再用一次JDBC批量插入
+     */
+    @Override
+    public int importUsers(List<User> users) {
+        Map<String,User> unique=new LinkedHashMap<>();
+        for(User user:users) {
+            unique.putIfAbsent(user.getUserID(),user);
+        }
+        List<User> rows=new ArrayList<>(unique.values());
+        int imported=0;
+        for(int from=0;from<rows.size();from+=IMPORT_BATCH_SIZE) {
+            List<User> chunk=rows.subList(from,Math.min(from+IMPORT_BATCH_SIZE,rows.size()));
+            Set<String> existing=new HashSet<>(userDao.findExistingUserIDs(
+                    chunk.stream().map(User::getUserID).collect(Collectors.toList())));
+            List<User> fresh=new ArrayList<>(chunk.size());
+            int normal=0;
+            for(User user:chunk) {
+                if(!existing.contains(user.getUserID())) {
+                    fresh.add(user);
+                    if(user.getIsadmin()==0) {
+                        normal++;
+                    }
+                }
+            }
+            if(fresh.isEmpty()) {
+                continue;
+            }
+            // 导入时密码哈希是主要开销，在密码校验的有界线程池中并行计算，不占用公共ForkJoinPool
+            List<String> passwords=credentialService.encodeAll(
+                    fresh.stream().map(User::getPassword).collect(Collectors.toList()));
+            for(int i=0;i<fresh.size();i++) {
+                fresh.get(i).setPassword(passwords.get(i));
+            }
+            imported+=userDao.batchInsert(fresh);
+            entityCounter.add(EntityCounter.USER,normal);
+            for(User user:fresh) {
+                userIDs.add(user.getUserID());
+            }
+        }
+        if(userIDs.saturated()) {
+            loadUserIDs();
+        }
+        return imported;
     }
 
     @Override
     public void delByID(int id) {
+        User user=userDao.findById(id);
         userDao.deleteById(id);
+        if(user==null) {
+            entityCounter.invalidate(EntityCounter.USER);
+            userIDs.clearConfirmed();
+        } else {
+            if(user.getIsadmin()==0) {
+                entityCounter.decrement(EntityCounter.USER);
+            }
+            userIDs.remove(user.getUserID());
+        }
     }
 
 
+    /**
+     * 密码与数据库中保存的相同说明未修改(编辑页面回填的是哈希)，否则按新设置的明文哈希
+     */
     @Override
     public void updateUser(User user) {
+        if(user.getPassword()!=null&&!user.getPassword().equals(userDao.findPasswordById(user.getId()))) {
+            encodePassword(user);
+        }
         userDao.save(user);
+        // userID可能被修改，原来的userID不再确认存在
+        userIDs.clearConfirmed();
+        addUserID(user.getUserID());
+        // 首页留言显示作者的用户名和头像
+        eventPublisher.publishEvent(new ContentChangedEvent(this,ContentChangedEvent.Content.MESSAGE));
     }
 
     @Override
     public int countUserID(String userID) {
-        return userDao.countByUserID(userID);
+        return userIDs.count(userID,userDao::countByUserID);
+    }
+
+    /**
+     * 来自表单和导入文件的密码一律当作明文，即使以{bcrypt}开头
+     */
+    private void encodePassword(User user) {
+        if(user.getPassword()!=null) {
+            user.setPassword(credentialService.encode(user.getPassword()));
+        }
+    }
+
+    private void addUserID(String userID) {
+        userIDs.add(userID);
+        if(userIDs.saturated()) {
+            loadUserIDs();
+        }
+    }
+
+    @Override
+    public long countUser() {
+        return entityCounter.get(EntityCounter.USER,()->userDao.countByIsadmin(0));
     }
 }
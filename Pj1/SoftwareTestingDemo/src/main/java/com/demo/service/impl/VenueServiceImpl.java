@@ -1,10 +1,21 @@
 package com.demo.service.impl;
 
+import com.demo.cache.ContentChangedEvent;
+import com.demo.cache.ContentVersions;
+import com.demo.cache.EntityCounter;
+import com.demo.cache.NameIndex;
+import com.demo.cache.VenueCache;
 import com.demo.dao.VenueDao;
 import com.demo.entity.Venue;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.service.VenueService;
+import com.demo.utils.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
@@ -12,46 +23,110 @@ import java.util.List;
 
 @Service
 public class VenueServiceImpl implements VenueService {
+    private static final int VENUE_NAME_CAPACITY=10000;
+
     @Autowired
     private VenueDao venueDao;
+    @Autowired
+    private EntityCounter entityCounter;
+    @Autowired
+    private VenueCache venueCache;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ContentVersions contentVersions;
+
+    private final NameIndex venueNames=new NameIndex(VENUE_NAME_CAPACITY);
+
+    /**
+     * 启动后加载全部场馆名
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadVenueNames() {
+        venueNames.rebuild(venueDao::findAllVenueNames);
+    }
 
     @Override
     public Venue findByVenueID(int id) {
-        return venueDao.getOne(id);
+        Venue venue=venueCache.get(id,venueDao::findByVenueID);
+        // 不存在的场馆不缓存，保持getOne原来的行为
+        return venue!=null?venue:venueDao.getOne(id);
     }
 
     @Override
     public Venue findByVenueName(String venueName) {
-        return venueDao.findByVenueName(venueName);
+        return venueCache.getByName(venueName,venueDao::findByVenueName);
     }
 
     @Override
     public Page<Venue> findAll(Pageable pageable) {
-        return venueDao.findAll(pageable);
+        return venueCache.page(pageable,venueDao::findAll);
     }
 
     @Override
     public List<Venue> findAll() {
-        return venueDao.findAll();
+        return venueCache.all(venueDao::findAll);
+    }
+
+    @Override
+    public KeysetPage<Venue> findAll(String after, int size) {
+        int venueID=CursorUtil.isEmpty(after)?0:Integer.parseInt(CursorUtil.decode(after,1)[0]);
+        List<Venue> venues=venueDao.findAllByVenueIDGreaterThanOrderByVenueIDAsc(venueID,PageRequest.of(0,size+1));
+        return CursorUtil.page(venues,size,v->new Object[]{v.getVenueID()});
     }
 
     @Override
     public int create(Venue venue) {
-        return venueDao.save(venue).getVenueID();
+        int venueID=venueDao.save(venue).getVenueID();
+        venueCache.invalidateLists();
+        entityCounter.increment(EntityCounter.VENUE);
+        addVenueName(venue.getVenueName());
+        changed();
+        return venueID;
     }
 
     @Override
     public void update(Venue venue) {
         venueDao.save(venue);
+        venueCache.invalidate(venue.getVenueID());
+        // 场馆名可能被修改，原来的场馆名不再确认存在
+        venueNames.clearConfirmed();
+        addVenueName(venue.getVenueName());
+        changed();
     }
 
     @Override
     public void delById(int id) {
         venueDao.deleteById(id);
+        venueCache.invalidate(id);
+        entityCounter.decrement(EntityCounter.VENUE);
+        venueNames.clearConfirmed();
+        changed();
     }
 
     @Override
     public int countVenueName(String venueName) {
-        return venueDao.countByVenueName(venueName);
+        return venueNames.count(venueName,venueDao::countByVenueName);
+    }
+
+    @Override
+    public long countAll() {
+        return entityCounter.get(EntityCounter.VENUE,venueDao::count);
+    }
+
+    @Override
+    public long version() {
+        return contentVersions.get(ContentChangedEvent.Content.VENUE);
+    }
+
+    private void addVenueName(String venueName) {
+        venueNames.add(venueName);
+        if(venueNames.saturated()) {
+            loadVenueNames();
+        }
+    }
+
+    private void changed() {
+        eventPublisher.publishEvent(new ContentChangedEvent(this,ContentChangedEvent.Content.VENUE));
     }
 }
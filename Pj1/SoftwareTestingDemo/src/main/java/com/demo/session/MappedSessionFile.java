@@ -0,0 +1,291 @@
+package com.demo.session;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 内存映射文件中的会话数据
+ * 记录追加写入文件末尾，覆盖或删除时只把旧记录标记为无效，空间不足时整理文件。
+ * 堆内只保存会话ID到记录位置和过期时间的索引，会话内容都在映射区中。
+ * 打开已有文件时扫描记录重建索引，因此同一台机器上重启后会话仍然存在。
+ * 文件中是可以直接使用的会话，目录和文件只允许当前用户访问(POSIX 0700/0600)，权限更宽时拒绝打开。
+ *
+ * 文件头：magic(4) version(4) end(4) 保留(4)
+ * 记录：length(4) state(1) expiresAt(8) idLength(2) id payload
+ */
+public class MappedSessionFile implements Closeable {
+    static final int MAGIC = 0x53455353;
+    static final int VERSION = 1;
+    static final int HEADER = 16;
+    static final int RECORD_HEADER = 4 + 1 + 8 + 2;
+    private static final int END_OFFSET = 8;
+    private static final byte DEAD = 0;
+    private static final byte LIVE = 1;
+    private static final Set<PosixFilePermission> PRIVATE_DIR = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> PRIVATE_FILE = PosixFilePermissions.fromString("rw-------");
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final Map<String, Slot> index = new HashMap<>();
+    private int end;
+    private int deadBytes;
+
+    private static class Slot {
+        int offset;
+        final int length;
+        final long expiresAt;
+
+        Slot(int offset, int length, long expiresAt) {
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 打开或创建文件，已有文件比capacity大时按文件大小映射
+     */
+    public MappedSessionFile(Path path, int capacity) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        createPrivate(dir, PRIVATE_DIR, true);
+        createPrivate(path, PRIVATE_FILE, false);
+        file = new RandomAccessFile(path.toFile(), "rw");
+        this.capacity = (int) Math.max(capacity, file.length());
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION) {
+            recover();
+        } else {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            setEnd(HEADER);
+        }
+    }
+
+    /**
+     * 写入会话，替换同ID的旧记录
+     * @param expiresAt 过期时间(毫秒)，清理时使用
+     */
+    public synchronized void put(String id, long expiresAt, byte[] payload) throws IOException {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        int length = RECORD_HEADER + idBytes.length + payload.length;
+        if (end + length > capacity) {
+            compact();
+        }
+        if (end + length > capacity) {
+            throw new IOException("会话存储空间不足");
+        }
+        ByteBuffer out = buffer.duplicate();
+        out.position(end);
+        out.putInt(length).put(LIVE).putLong(expiresAt).putShort((short) idBytes.length).put(idBytes).put(payload);
+        // 先写新记录再推进end、标记旧记录，中途崩溃最多留下两条有效记录，恢复时保留后一条
+        Slot old = index.put(id, new Slot(end, length, expiresAt));
+        setEnd(end + length);
+        if (old != null) {
+            kill(old);
+        }
+    }
+
+    /**
+     * 读取会话内容，不存在时返回null
+     */
+    public synchronized byte[] get(String id) {
+        Slot slot = index.get(id);
+        if (slot == null) {
+            return null;
+        }
+        int idLength = buffer.getShort(slot.offset + RECORD_HEADER - 2);
+        byte[] payload = new byte[slot.length - RECORD_HEADER - idLength];
+        ByteBuffer in = buffer.duplicate();
+        in.position(slot.offset + RECORD_HEADER + idLength);
+        in.get(payload);
+        return payload;
+    }
+
+    public synchronized boolean remove(String id) {
+        Slot slot = index.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        kill(slot);
+        return true;
+    }
+
+    public synchronized String[] keys() {
+        return index.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * 过期时间不晚于now的会话ID，不需要读取会话内容
+     */
+    public synchronized String[] expired(long now) {
+        List<String> ids = new ArrayList<>();
+        for (Map.Entry<String, Slot> entry : index.entrySet()) {
+            if (entry.getValue().expiresAt <= now) {
+                ids.add(entry.getKey());
+            }
+        }
+        return ids.toArray(new String[0]);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized void clear() {
+        index.clear();
+        deadBytes = 0;
+        setEnd(HEADER);
+    }
+
+    /**
+     * 已使用的字节数，包括还未整理掉的无效记录
+     */
+    public synchronized int used() {
+        return end;
+    }
+
+    public synchronized int garbage() {
+        return deadBytes;
+    }
+
+    /**
+     * 把有效记录移到文件前部
+     * 整理期间end先置为文件头，此时崩溃只会丢失会话(用户需要重新登录)，不会读到错乱的记录。
+     */
+    public synchronized void compact() {
+        List<Slot> slots = new ArrayList<>(index.values());
+        slots.sort(Comparator.comparingInt(slot -> slot.offset));
+        setEnd(HEADER);
+        int position = HEADER;
+        byte[] record = new byte[0];
+        for (Slot slot : slots) {
+            if (slot.offset != position) {
+                if (record.length < slot.length) {
+                    record = new byte[slot.length];
+                }
+                ByteBuffer in = buffer.duplicate();
+                in.position(slot.offset);
+                in.get(record, 0, slot.length);
+                ByteBuffer out = buffer.duplicate();
+                out.position(position);
+                out.put(record, 0, slot.length);
+                slot.offset = position;
+            }
+            position += slot.length;
+        }
+        deadBytes = 0;
+        setEnd(position);
+    }
+
+    /**
+     * 把映射区写回磁盘
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+
+    /**
+     * 不存在时按permissions创建，已存在时检查属于当前用户且组和其他用户没有任何权限
+     * 不支持POSIX权限的文件系统(Windows)只创建，不检查
+     */
+    static void createPrivate(Path path, Set<PosixFilePermission> permissions, boolean directory) throws IOException {
+        boolean posix = path.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (Files.notExists(path, LinkOption.NOFOLLOW_LINKS)) {
+            FileAttribute<?>[] attributes = posix
+                    ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(permissions)} : new FileAttribute<?>[0];
+            try {
+                if (directory) {
+                    Files.createDirectories(path, attributes);
+                } else {
+                    Files.createFile(path, attributes);
+                }
+            } catch (FileAlreadyExistsException e) {
+                // 被并发创建，按已存在检查
+            }
+        }
+        if (!posix) {
+            return;
+        }
+        if (Files.isSymbolicLink(path) || Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS) != directory) {
+            throw new IOException("会话文件路径类型不正确：" + path);
+        }
+        UserPrincipal owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal current = path.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(current)) {
+            throw new IOException("会话文件不属于当前用户：" + path);
+        }
+        Set<PosixFilePermission> actual = Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS);
+        if (!permissions.containsAll(actual)) {
+            throw new IOException("会话文件权限过宽：" + path + " " + PosixFilePermissions.toString(actual));
+        }
+    }
+
+    private void recover() {
+        int limit = buffer.getInt(END_OFFSET);
+        if (limit < HEADER || limit > capacity) {
+            limit = HEADER;
+        }
+        int position = HEADER;
+        while (position < limit) {
+            int length = buffer.getInt(position);
+            if (length < RECORD_HEADER || position + length > limit) {
+                // 写到一半的记录，丢弃之后的内容
+                break;
+            }
+            byte state = buffer.get(position + 4);
+            long expiresAt = buffer.getLong(position + 5);
+            int idLength = buffer.getShort(position + RECORD_HEADER - 2);
+            if (state == LIVE && idLength > 0 && RECORD_HEADER + idLength <= length) {
+                byte[] idBytes = new byte[idLength];
+                ByteBuffer in = buffer.duplicate();
+                in.position(position + RECORD_HEADER);
+                in.get(idBytes);
+                Slot old = index.put(new String(idBytes, StandardCharsets.UTF_8), new Slot(position, length, expiresAt));
+                if (old != null) {
+                    kill(old);
+                }
+            } else {
+                deadBytes += length;
+            }
+            position += length;
+        }
+        setEnd(position);
+    }
+
+    private void kill(Slot slot) {
+        buffer.put(slot.offset + 4, DEAD);
+        deadBytes += slot.length;
+    }
+
+    private void setEnd(int end) {
+        this.end = end;
+        buffer.putInt(END_OFFSET, end);
+    }
+}
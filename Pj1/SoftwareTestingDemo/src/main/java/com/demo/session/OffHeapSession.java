@@ -0,0 +1,36 @@
+package com.demo.session;
+
+import org.apache.catalina.Manager;
+import org.apache.catalina.session.StandardSession;
+
+import java.util.Map;
+
+/**
+ * 可以由SessionCodec直接读写状态的会话
+ * 恢复时直接设置字段和属性，与StandardSession反序列化一样不触发属性监听器。
+ */
+public class OffHeapSession extends StandardSession {
+    private static final long serialVersionUID = 1L;
+
+    public OffHeapSession(Manager manager) {
+        super(manager);
+    }
+
+    Map<String, Object> attributes() {
+        return attributes;
+    }
+
+    boolean isNewInternal() {
+        return isNew;
+    }
+
+    void restore(String id, long creationTime, long lastAccessedTime, int maxInactiveInterval, boolean isNew) {
+        this.id = id;
+        this.creationTime = creationTime;
+        this.lastAccessedTime = lastAccessedTime;
+        this.thisAccessedTime = lastAccessedTime;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.isNew = isNew;
+        this.isValid = true;
+    }
+}
@@ -0,0 +1,28 @@
+package com.demo.session;
+
+import org.apache.catalina.session.PersistentManagerBase;
+import org.apache.catalina.session.StandardSession;
+
+/**
+ * 把空闲会话换出到OffHeapSessionStore的会话管理器
+ * 空闲超过maxIdleSwap秒的会话从堆内移到映射文件，下次请求时再读回；
+ * 停止时全部写入文件，重启后按需读回，所以大量匿名访问产生的会话不会一直留在老年代。
+ */
+public class OffHeapSessionManager extends PersistentManagerBase {
+
+    public OffHeapSessionManager(OffHeapSessionStore store, int maxIdleSwapSeconds) {
+        setStore(store);
+        setMaxIdleSwap(maxIdleSwapSeconds);
+        setSaveOnRestart(true);
+    }
+
+    @Override
+    public String getName() {
+        return "OffHeapSessionManager";
+    }
+
+    @Override
+    protected StandardSession getNewSession() {
+        return new OffHeapSession(this);
+    }
+}
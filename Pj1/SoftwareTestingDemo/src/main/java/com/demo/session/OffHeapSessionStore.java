@@ -0,0 +1,109 @@
+package com.demo.session;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Session;
+import org.apache.catalina.session.StoreBase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 保存在内存映射文件中的Tomcat会话存储
+ * 过期清理由Tomcat的后台线程调用processExpires完成，这里按索引中的过期时间挑出候选会话，
+ * 不需要像文件存储那样把所有会话读出来判断。
+ */
+@Slf4j
+public class OffHeapSessionStore extends StoreBase {
+    private final Path path;
+    private final int capacity;
+    private MappedSessionFile file;
+
+    public OffHeapSessionStore(Path path, int capacity) {
+        this.path = path;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public String getStoreName() {
+        return "OffHeapSessionStore";
+    }
+
+    @Override
+    public int getSize() {
+        return file.size();
+    }
+
+    @Override
+    public String[] keys() {
+        return file.keys();
+    }
+
+    @Override
+    public String[] expiredKeys() {
+        return file.expired(System.currentTimeMillis());
+    }
+
+    @Override
+    public Session load(String id) throws ClassNotFoundException, IOException {
+        byte[] data = file.get(id);
+        if (data == null) {
+            return null;
+        }
+        OffHeapSession session = (OffHeapSession) manager.createEmptySession();
+        SessionCodec.decode(data, id, session, this::getObjectInputStream);
+        session.setManager(manager);
+        return session;
+    }
+
+    @Override
+    public void remove(String id) {
+        file.remove(id);
+    }
+
+    @Override
+    public void clear() {
+        file.clear();
+    }
+
+    @Override
+    public void save(Session session) throws IOException {
+        OffHeapSession offHeapSession = (OffHeapSession) session;
+        int maxInactiveInterval = session.getMaxInactiveInterval();
+        long expiresAt = maxInactiveInterval > 0
+                ? session.getLastAccessedTimeInternal() + maxInactiveInterval * 1000L : Long.MAX_VALUE;
+        file.put(session.getIdInternal(), expiresAt, SessionCodec.encode(offHeapSession));
+    }
+
+    /**
+     * 清理过期会话后，无效记录超过一半时整理文件
+     */
+    @Override
+    public void processExpires() {
+        super.processExpires();
+        if (file != null && file.garbage() * 2 > file.used()) {
+            file.compact();
+        }
+    }
+
+    @Override
+    protected synchronized void startInternal() throws LifecycleException {
+        try {
+            file = new MappedSessionFile(path, capacity);
+        } catch (IOException e) {
+            throw new LifecycleException("无法打开会话文件：" + path, e);
+        }
+        log.info("session store {} opened with {} sessions", path, file.size());
+        super.startInternal();
+    }
+
+    @Override
+    protected synchronized void stopInternal() throws LifecycleException {
+        super.stopInternal();
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.warn("failed to close session store {}", path, e);
+        }
+    }
+}
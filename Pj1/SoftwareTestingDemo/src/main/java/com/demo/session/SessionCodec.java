@@ -0,0 +1,162 @@
+package com.demo.session;
+
+import com.demo.entity.vo.SessionUser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 会话的二进制编码
+ * 登录后保存的SessionUser和常见的字符串、整数属性按字段写入，其余可序列化的属性使用Java序列化，
+ * 不可序列化的属性与Tomcat的处理一样直接丢弃。
+ */
+@Slf4j
+public final class SessionCodec {
+    private static final byte VERSION = 1;
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte SESSION_USER = 3;
+    private static final byte SERIALIZED = 4;
+
+    /**
+     * 反序列化使用的输入流，需要使用web应用的类加载器
+     */
+    public interface ObjectStreams {
+        ObjectInputStream open(InputStream in) throws IOException;
+    }
+
+    private SessionCodec() {
+    }
+
+    public static byte[] encode(OffHeapSession session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeLong(session.getCreationTimeInternal());
+        out.writeLong(session.getLastAccessedTimeInternal());
+        out.writeInt(session.getMaxInactiveInterval());
+        out.writeBoolean(session.isNewInternal());
+        Map<String, Object> attributes = session.attributes();
+        int count = 0;
+        for (Object value : attributes.values()) {
+            if (value == null || value instanceof Serializable) {
+                count++;
+            }
+        }
+        out.writeInt(count);
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            Object value = attribute.getValue();
+            if (value != null && !(value instanceof Serializable)) {
+                log.debug("session {} attribute {} is not serializable, dropped", session.getIdInternal(), attribute.getKey());
+                continue;
+            }
+            writeString(out, attribute.getKey());
+            writeValue(out, value);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static void decode(byte[] data, String id, OffHeapSession session, ObjectStreams streams)
+            throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readByte() != VERSION) {
+            throw new IOException("会话数据版本不支持");
+        }
+        session.restore(id, in.readLong(), in.readLong(), in.readInt(), in.readBoolean());
+        int count = in.readInt();
+        Map<String, Object> attributes = session.attributes();
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            Object value = readValue(in, streams);
+            // ConcurrentHashMap不能保存null值
+            if (value != null) {
+                attributes.put(name, value);
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof SessionUser) {
+            SessionUser user = (SessionUser) value;
+            out.writeByte(SESSION_USER);
+            out.writeInt(user.getId());
+            writeString(out, user.getUserID());
+            writeString(out, user.getUserName());
+            out.writeByte(user.getIsadmin());
+            writeString(out, user.getPicture());
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                objects.writeObject(value);
+            }
+            out.writeByte(SERIALIZED);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+
+    private static Object readValue(DataInputStream in, ObjectStreams streams) throws IOException, ClassNotFoundException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return in.readInt();
+            case SESSION_USER:
+                return new SessionUser(in.readInt(), readString(in), readString(in), in.readByte(), readString(in));
+            case SERIALIZED:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream objects = streams.open(new ByteArrayInputStream(bytes))) {
+                    return objects.readObject();
+                }
+            default:
+                throw new IOException("未知的会话属性类型：" + type);
+        }
+    }
+
+    /**
+     * 长度为-1表示null，不受writeUTF的64K限制
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,67 @@
+package com.demo.utils;
+
+import com.demo.entity.vo.KeysetPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页的after参数编码
+ * 把排序键和主键拼接后做URL安全的Base64编码，前端只需原样传回
+ */
+public class CursorUtil {
+    private static final String SEPARATOR = "\n";
+
+    public static String encode(Object... keys) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析after参数
+     *
+     * @param token
+     * @param size 键的个数
+     * @return 各个键的字符串形式
+     */
+    public static String[] decode(String token, int size) {
+        String[] keys;
+        try {
+            keys = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页参数", e);
+        }
+        if (keys.length != size) {
+            throw new IllegalArgumentException("无效的分页参数");
+        }
+        return keys;
+    }
+
+    public static boolean isEmpty(String token) {
+        return token == null || token.isEmpty();
+    }
+
+    /**
+     * 根据多取一条的查询结果组装游标分页
+     *
+     * @param rows 按size+1条查询的结果
+     * @param size 每页条数
+     * @param key 取出排序键和主键
+     * @return
+     */
+    public static <T> KeysetPage<T> page(List<T> rows, int size, Function<T, Object[]> key) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new KeysetPage<>(content, encode(key.apply(content.get(size - 1))));
+    }
+}
@@ -1,5 +1,6 @@
 package com.demo.utils;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ResourceUtils;
 import org.springframework.web.multipart.MultipartFile;
@@ -12,6 +13,7 @@ import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.util.UUID;
 
+@Slf4j
 public class FileUtil {
 
     /**
@@ -40,15 +42,14 @@ public class FileUtil {
 
     public static String savePicture(String filePath, MultipartFile picture) throws Exception{
         File fileDir = new File(filePath);
-        System.out.println(fileDir.mkdirs());
+        fileDir.mkdirs();
 
         String filename = picture.getOriginalFilename();
 
-        System.out.println(fileDir.getAbsolutePath());
         String suffixName = filename.substring(filename.lastIndexOf("."));
         filename = UUID.randomUUID() + suffixName;
         File newFile = new File(fileDir.getAbsolutePath() + File.separator + filename);
-        System.out.println(newFile.getAbsolutePath());
+        log.debug("save picture: {}", newFile.getAbsolutePath());
         // 上传图片到 -》 “绝对路径”
         picture.transferTo(newFile);
         return filename;
@@ -0,0 +1,14 @@
+package com.demo.utils;
+
+/**
+ * 分页页数计算
+ */
+public class PageUtil {
+
+    /**
+     * 由总行数计算页数，与Page.getTotalPages()一致
+     */
+    public static int totalPages(long count, int size) {
+        return size == 0 ? 1 : (int) Math.ceil((double) count / (double) size);
+    }
+}
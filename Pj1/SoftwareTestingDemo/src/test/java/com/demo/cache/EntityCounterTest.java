@@ -0,0 +1,50 @@
+package com.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityCounterTest {
+
+    // 第一次读取时加载，之后增量维护
+    @Test
+    void testLoadOnceThenMaintain() {
+        EntityCounter counter = new EntityCounter();
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(10, counter.get(EntityCounter.NEWS, () -> loads.incrementAndGet() * 10L));
+        counter.increment(EntityCounter.NEWS);
+        counter.increment(EntityCounter.NEWS);
+        counter.decrement(EntityCounter.NEWS);
+
+        assertEquals(11, counter.get(EntityCounter.NEWS, () -> loads.incrementAndGet() * 10L));
+        assertEquals(1, loads.get());
+    }
+
+    // 未加载的计数不受增量影响，读取时得到数据库的值
+    @Test
+    void testAddBeforeLoadIgnored() {
+        EntityCounter counter = new EntityCounter();
+
+        counter.increment(EntityCounter.VENUE);
+
+        assertEquals(3, counter.get(EntityCounter.VENUE, () -> 3L));
+    }
+
+    // 状态变化和失效
+    @Test
+    void testMoveAndInvalidate() {
+        EntityCounter counter = new EntityCounter();
+        counter.get(EntityCounter.message(1), () -> 4L);
+        counter.get(EntityCounter.message(2), () -> 0L);
+
+        counter.move(EntityCounter.message(1), EntityCounter.message(2), 3);
+        assertEquals(1, counter.get(EntityCounter.message(1), () -> -1L));
+        assertEquals(3, counter.get(EntityCounter.message(2), () -> -1L));
+
+        counter.invalidatePrefix(EntityCounter.MESSAGE);
+        assertEquals(7, counter.get(EntityCounter.message(1), () -> 7L));
+    }
+}
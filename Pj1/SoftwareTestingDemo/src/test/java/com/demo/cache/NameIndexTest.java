@@ -0,0 +1,104 @@
+package com.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameIndexTest {
+    private final AtomicInteger queries = new AtomicInteger();
+    private final List<String> table = new ArrayList<>(Arrays.asList("alice", "bob"));
+    private final ToIntFunction<String> countQuery = name -> {
+        queries.incrementAndGet();
+        return table.contains(name) ? 1 : 0;
+    };
+
+    // 布隆过滤器没有漏判
+    @Test
+    void testBloomFilterNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("user" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    // 一定不存在的名称不查询数据库，存在的名称确认一次后不再查询
+    @Test
+    void testCount() {
+        NameIndex index = new NameIndex(100);
+        index.rebuild(() -> table);
+
+        assertEquals(0, index.count("carol", countQuery));
+        assertEquals(0, queries.get());
+
+        assertEquals(1, index.count("alice", countQuery));
+        assertEquals(1, index.count("alice", countQuery));
+        assertEquals(1, queries.get());
+    }
+
+    // 加载之前全部查询数据库
+    @Test
+    void testNotLoaded() {
+        NameIndex index = new NameIndex(100);
+        assertEquals(0, index.count("carol", countQuery));
+        assertEquals(1, queries.get());
+    }
+
+    // 新增的名称立即可见，删除后由数据库确认
+    @Test
+    void testAddAndRemove() {
+        NameIndex index = new NameIndex(100);
+        index.rebuild(() -> table);
+
+        table.add("carol");
+        index.add("carol");
+        assertEquals(1, index.count("carol", countQuery));
+
+        table.remove("carol");
+        index.remove("carol");
+        assertEquals(0, index.count("carol", countQuery));
+        assertEquals(2, queries.get());
+    }
+
+    // 重建期间加入的名称不会丢失
+    @Test
+    void testAddDuringRebuild() {
+        NameIndex index = new NameIndex(2);
+        index.rebuild(() -> {
+            index.add("carol");
+            return table;
+        });
+        table.add("carol");
+
+        assertEquals(1, index.count("carol", countQuery));
+    }
+
+    // 超过容量后需要重建，重建后容量翻倍
+    @Test
+    void testSaturated() {
+        NameIndex index = new NameIndex(2);
+        index.rebuild(() -> table);
+        assertFalse(index.saturated());
+
+        for (int i = 0; i < 3; i++) {
+            index.add("user" + i);
+        }
+        assertTrue(index.saturated());
+
+        index.rebuild(() -> Arrays.asList("alice", "bob", "user0", "user1", "user2"));
+        assertFalse(index.saturated());
+    }
+}
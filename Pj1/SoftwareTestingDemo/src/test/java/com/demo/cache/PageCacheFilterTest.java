@@ -0,0 +1,116 @@
+package com.demo.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCacheFilterTest {
+    private final PageCache pageCache = new PageCache();
+    private final PageCacheFilter filter = new PageCacheFilter(pageCache);
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private final HttpServlet page = new HttpServlet() {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            resp.setContentType("text/html;charset=UTF-8");
+            resp.getWriter().write("<html>" + renders.incrementAndGet() + "</html>");
+        }
+    };
+
+    private MockHttpServletResponse get(String path, String etag, MockHttpSession session) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        if (etag != null) {
+            request.addHeader("If-None-Match", etag);
+        }
+        if (session != null) {
+            request.setSession(session);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(page));
+        return response;
+    }
+
+    // 第二次访问不再渲染，ETag相同
+    @Test
+    void testServedFromCache() throws Exception {
+        MockHttpServletResponse first = get("/index", null, null);
+        MockHttpServletResponse second = get("/index", null, null);
+
+        assertEquals(1, renders.get());
+        assertEquals("<html>1</html>", second.getContentAsString());
+        assertNotNull(first.getHeader("ETag"));
+        assertEquals(first.getHeader("ETag"), second.getHeader("ETag"));
+    }
+
+    // If-None-Match相同时返回304
+    @Test
+    void testNotModified() throws Exception {
+        String etag = get("/news_list", null, null).getHeader("ETag");
+
+        MockHttpServletResponse response = get("/news_list", etag, null);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    // 内容变化只清除依赖该内容的页面
+    @Test
+    void testInvalidatedByEvent() throws Exception {
+        get("/index", null, null);
+        get("/venue_list", null, null);
+
+        pageCache.onContentChanged(new ContentChangedEvent(this, ContentChangedEvent.Content.NEWS));
+        get("/index", null, null);
+        get("/venue_list", null, null);
+
+        assertEquals(3, renders.get());
+    }
+
+    // 已登录用户不使用缓存
+    @Test
+    void testLoggedInNotCached() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("user", new Object());
+
+        get("/index", null, session);
+        get("/index", null, session);
+
+        assertEquals(2, renders.get());
+        assertNull(pageCache.get("/index"));
+    }
+
+    // 管理员和其他登录信息同样不使用缓存
+    @Test
+    void testAnyLoginAttributeNotCached() throws Exception {
+        MockHttpSession admin = new MockHttpSession();
+        admin.setAttribute("admin", new Object());
+        MockHttpSession legacy = new MockHttpSession();
+        legacy.setAttribute("loginUser", new Object());
+
+        get("/index", null, admin);
+        get("/index", null, legacy);
+
+        assertEquals(2, renders.get());
+        assertNull(pageCache.get("/index"));
+    }
+
+    // 没有属性的会话按未登录处理
+    @Test
+    void testEmptySessionCached() throws Exception {
+        get("/index", null, new MockHttpSession());
+        get("/index", null, new MockHttpSession());
+
+        assertEquals(1, renders.get());
+    }
+}
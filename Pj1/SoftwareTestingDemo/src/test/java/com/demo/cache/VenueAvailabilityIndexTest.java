@@ -0,0 +1,110 @@
+package com.demo.cache;
+
+import com.demo.dao.OrderDao;
+import com.demo.entity.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static com.demo.service.OrderService.STATE_NO_AUDIT;
+import static com.demo.service.OrderService.STATE_REJECT;
+import static com.demo.service.OrderService.STATE_WAIT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class VenueAvailabilityIndexTest {
+    @InjectMocks
+    VenueAvailabilityIndex index;
+
+    @Mock
+    OrderDao orderDao;
+
+    private final LocalDate day = LocalDate.of(2024, 5, 1);
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    private Order order(int orderID, int state, LocalDateTime startTime, int hours) {
+        return new Order(orderID, "user", 1, state, LocalDateTime.now(), startTime, hours, hours * 100);
+    }
+
+    // 从数据库加载一天的占用，拒绝的订单不占用时段
+    @Test
+    void testLoadDay() {
+        when(orderDao.findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any())).thenReturn(Arrays.asList(
+                order(1, STATE_WAIT, day.atTime(9, 0), 2),
+                order(2, STATE_REJECT, day.atTime(14, 0), 1)));
+
+        int occupied = index.occupied(1, day);
+
+        assertEquals((1 << 9) | (1 << 10), occupied);
+        assertTrue(index.hasConflict(1, day.atTime(10, 0), 1));
+        assertFalse(index.hasConflict(1, day.atTime(14, 0), 1));
+        // 同一天只查询一次数据库
+        verify(orderDao, times(1)).findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any());
+    }
+
+    // 跨零点的订单占用两天的时段
+    @Test
+    void testOvernightOrder() {
+        when(orderDao.findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any())).thenReturn(new ArrayList<>());
+        index.occupied(1, day);
+        index.occupied(1, day.plusDays(1));
+
+        index.add(order(1, STATE_NO_AUDIT, day.atTime(23, 0), 2));
+
+        assertEquals(1 << 23, index.occupied(1, day));
+        assertEquals(1, index.occupied(1, day.plusDays(1)));
+    }
+
+    // 修改订单时忽略自身占用的时段
+    @Test
+    void testConflictIgnoresSelf() {
+        Order own = order(1, STATE_NO_AUDIT, day.atTime(9, 0), 2);
+        when(orderDao.findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any())).thenReturn(Arrays.asList(own));
+
+        assertTrue(index.hasConflict(1, day.atTime(10, 0), 2));
+        assertFalse(index.hasConflict(1, day.atTime(10, 0), 2, own));
+    }
+
+    // 释放时段后重新从数据库加载
+    @Test
+    void testRemoveReloads() {
+        Order own = order(1, STATE_NO_AUDIT, day.atTime(9, 0), 1);
+        when(orderDao.findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any()))
+                .thenReturn(Arrays.asList(own))
+                .thenReturn(new ArrayList<>());
+        assertEquals(1 << 9, index.occupied(1, day));
+
+        index.remove(own);
+
+        assertEquals(0, index.occupied(1, day));
+    }
+
+    // 每个场馆缓存的天数有上限，最久未访问的一天被淘汰后重新加载
+    @Test
+    void testDaysBounded() {
+        when(orderDao.findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any())).thenReturn(new ArrayList<>());
+
+        for (int i = 0; i <= VenueAvailabilityIndex.DAYS_PER_VENUE; i++) {
+            index.occupied(1, day.plusDays(i));
+        }
+        verify(orderDao, times(VenueAvailabilityIndex.DAYS_PER_VENUE + 1)).findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any());
+
+        index.occupied(1, day.plusDays(VenueAvailabilityIndex.DAYS_PER_VENUE));
+        verify(orderDao, times(VenueAvailabilityIndex.DAYS_PER_VENUE + 1)).findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any());
+        index.occupied(1, day);
+        verify(orderDao, times(VenueAvailabilityIndex.DAYS_PER_VENUE + 2)).findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any());
+    }
+}
@@ -0,0 +1,97 @@
+package com.demo.cache;
+
+import com.demo.entity.Venue;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VenueCacheTest {
+    private final VenueCache cache = new VenueCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Venue venue(int venueID, String venueName) {
+        return new Venue(venueID, venueName, "", 100, "", "", "08:00", "20:00");
+    }
+
+    private Venue load(int venueID) {
+        loads.incrementAndGet();
+        return venue(venueID, "venue" + venueID);
+    }
+
+    // 按ID读取后按名字也能命中
+    @Test
+    void testHitByIDAndName() {
+        cache.get(1, this::load);
+        Venue byID = cache.get(1, this::load);
+        Venue byName = cache.getByName("venue1", name -> fail("不应查询数据库"));
+
+        assertEquals(1, loads.get());
+        assertEquals("venue1", byID.getVenueName());
+        assertEquals(1, byName.getVenueID());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    // 修改返回的对象不影响缓存
+    @Test
+    void testReturnsCopy() {
+        cache.get(1, this::load).setPrice(1);
+
+        assertEquals(100, cache.get(1, this::load).getPrice());
+    }
+
+    // 修改场馆后旧名字失效，重新加载
+    @Test
+    void testInvalidateRename() {
+        cache.get(1, this::load);
+
+        cache.invalidate(1);
+
+        assertNull(cache.getByName("venue1", name -> null));
+        assertEquals("new", cache.get(1, id -> venue(id, "new")).getVenueName());
+        assertEquals(1, cache.getByName("new", name -> null).getVenueID());
+    }
+
+    // 查询期间发生失效，旧结果不进入缓存
+    @Test
+    void testStaleLoadNotCached() {
+        cache.get(1, id -> {
+            cache.invalidate(id);
+            return venue(id, "old");
+        });
+
+        assertEquals("new", cache.get(1, id -> venue(id, "new")).getVenueName());
+    }
+
+    // 列表在场馆变化后重新加载
+    @Test
+    void testPageInvalidatedByChange() {
+        Pageable pageable = PageRequest.of(0, 5);
+        cache.page(pageable, p -> new PageImpl<>(Arrays.asList(load(1)), p, 1));
+        Page<Venue> cached = cache.page(pageable, p -> fail("不应查询数据库"));
+        assertEquals(1, cached.getTotalElements());
+
+        cache.invalidateLists();
+
+        Page<Venue> reloaded = cache.page(pageable, p -> new PageImpl<>(Arrays.asList(load(1), load(2)), p, 2));
+        assertEquals(2, reloaded.getTotalElements());
+    }
+
+    // 容量有上限
+    @Test
+    void testBounded() {
+        for (int i = 1; i <= VenueCache.MAX_VENUES + 10; i++) {
+            cache.get(i, this::load);
+        }
+
+        assertEquals(VenueCache.MAX_VENUES, cache.size());
+        assertNull(cache.getByName("venue1", name -> null));
+    }
+}
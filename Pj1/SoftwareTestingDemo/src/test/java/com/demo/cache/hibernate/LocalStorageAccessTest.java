@@ -0,0 +1,35 @@
+package com.demo.cache.hibernate;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalStorageAccessTest {
+
+    // 超过容量时淘汰最久未使用的条目
+    @Test
+    void testBounded() {
+        LocalStorageAccess storage = new LocalStorageAccess(0, 2);
+        storage.putIntoCache(1, "a", null);
+        storage.putIntoCache(2, "b", null);
+        storage.getFromCache(1, null);
+        storage.putIntoCache(3, "c", null);
+
+        assertEquals(2, storage.size());
+        assertTrue(storage.contains(1));
+        assertFalse(storage.contains(2));
+    }
+
+    // 过期的条目读取不到
+    @Test
+    void testExpired() throws InterruptedException {
+        LocalStorageAccess storage = new LocalStorageAccess(20, 0);
+        storage.putFromLoad(1, "a", null);
+        assertEquals("a", storage.getFromCache(1, null));
+
+        Thread.sleep(40);
+
+        assertNull(storage.getFromCache(1, null));
+        assertEquals(0, storage.size());
+    }
+}
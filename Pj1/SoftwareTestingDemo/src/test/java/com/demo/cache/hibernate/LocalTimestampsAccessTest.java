@@ -0,0 +1,39 @@
+package com.demo.cache.hibernate;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalTimestampsAccessTest {
+
+    // 超过容量时淘汰最久未使用的表，没有记录的表按淘汰的最大时间戳返回
+    @Test
+    void testBoundedWithFloor() {
+        LocalTimestampsAccess storage = new LocalTimestampsAccess(2);
+        assertNull(storage.getFromCache("news", null));
+
+        storage.putIntoCache("news", 100L, null);
+        storage.putIntoCache("user", 300L, null);
+        storage.getFromCache("news", null);
+        storage.putIntoCache("order", 200L, null);
+
+        assertEquals(2, storage.size());
+        assertFalse(storage.contains("user"));
+        assertEquals(300L, storage.getFromCache("user", null));
+        assertEquals(300L, storage.getFromCache("venue", null));
+        assertEquals(100L, storage.getFromCache("news", null));
+    }
+
+    // 清空后所有表都按清空前的最大时间戳返回
+    @Test
+    void testEvictKeepsFloor() {
+        LocalTimestampsAccess storage = new LocalTimestampsAccess(10);
+        storage.putIntoCache("news", 100L, null);
+        storage.putIntoCache("user", 50L, null);
+
+        storage.evictData();
+
+        assertEquals(0, storage.size());
+        assertEquals(100L, storage.getFromCache("user", null));
+    }
+}
@@ -0,0 +1,17 @@
+package com.demo.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionStoreConfigTest {
+
+    // 容量按long计算，超过int范围时拒绝而不是溢出
+    @Test
+    void testCapacityBytes() {
+        assertEquals(64 * 1024 * 1024, SessionStoreConfig.capacityBytes(64));
+        assertEquals(2047 * 1024 * 1024, SessionStoreConfig.capacityBytes(2047));
+        assertThrows(IllegalArgumentException.class, () -> SessionStoreConfig.capacityBytes(2048));
+        assertThrows(IllegalArgumentException.class, () -> SessionStoreConfig.capacityBytes(0));
+    }
+}
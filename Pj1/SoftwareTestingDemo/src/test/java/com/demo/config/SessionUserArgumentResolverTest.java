@@ -0,0 +1,51 @@
+package com.demo.config;
+
+import com.demo.entity.User;
+import com.demo.entity.vo.SessionUser;
+import com.demo.exception.LoginException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionUserArgumentResolverTest {
+    private final SessionUserArgumentResolver resolver = new SessionUserArgumentResolver();
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+    private Object resolve() {
+        return resolver.resolveArgument(null, null, new ServletWebRequest(request), null);
+    }
+
+    // 已登录，注入session中的登录用户
+    @Test
+    void testResolve() {
+        SessionUser user = new SessionUser(1, "test", "test", 0, "");
+        request.getSession().setAttribute("user", user);
+
+        assertSame(user, resolve());
+    }
+
+    // 升级前的session保存的是完整User，转换后注入
+    @Test
+    void testResolveLegacyUser() {
+        request.getSession().setAttribute("user", new User(1, "test", "name", "123456", "a@qq.com", "12345678901", 0, "1.jpg"));
+
+        assertEquals(new SessionUser(1, "test", "name", 0, "1.jpg"), resolve());
+    }
+
+    // 未登录
+    @Test
+    void testResolveNotLogin() {
+        LoginException e = assertThrows(LoginException.class, this::resolve);
+        assertEquals("请登录！", e.getMessage());
+    }
+
+    // 管理员登录不能访问普通用户的页面
+    @Test
+    void testResolveAdminOnly() {
+        request.getSession().setAttribute("admin", new SessionUser(2, "admin", "admin", 1, ""));
+
+        assertThrows(LoginException.class, this::resolve);
+    }
+}
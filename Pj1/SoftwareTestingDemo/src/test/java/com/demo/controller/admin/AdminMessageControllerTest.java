@@ -21,8 +21,11 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import static com.demo.service.MessageService.STATE_PASS;
@@ -76,26 +79,21 @@ class AdminMessageControllerTest {
 
     @Test
     void testMessageManage_valid_OK() throws Exception {
-        Pageable message_pageable = PageRequest.of(0, 10, Sort.by("time").descending());
-        Page<Message> messagePage = new PageImpl<>(messages, message_pageable, 3);
-
         //given
-        when(messageService.findWaitState(message_pageable)).thenReturn(messagePage);
+        when(messageService.countWaitState()).thenReturn(3L);
         //when&then
         mockMvc.perform(get("/message_manage"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("admin/message_manage"))
-                .andExpect(model().attribute("total", messagePage.getTotalPages()));
-        verify(messageService, times(1)).findWaitState(message_pageable);
+                .andExpect(model().attribute("total", 1));
+        verify(messageService, times(1)).countWaitState();
+        verify(messageService, never()).findWaitState(any(Pageable.class));
     }
 
     @Test
     void testMessageManage_withoutMessages_OK() throws Exception {
-        Pageable message_pageable = PageRequest.of(0, 10, Sort.by("time").descending());
-        Page<Message> emptyPage = new PageImpl<>(Collections.emptyList(), message_pageable, 0);
-
         //given
-        when(messageService.findWaitState(message_pageable)).thenReturn(emptyPage);
+        when(messageService.countWaitState()).thenReturn(0L);
 
         //when&then
         mockMvc.perform(get("/message_manage"))
@@ -315,4 +313,40 @@ class AdminMessageControllerTest {
                     .andExpect(status().isBadRequest());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPassMessages_valid_OK() throws Exception {
+        Map<Integer, Boolean> outcome = new LinkedHashMap<>();
+        outcome.put(1, true);
+        outcome.put(2, false);
+
+        // given
+        when(messageService.confirmMessages(Arrays.asList(1, 2))).thenReturn(outcome);
+
+        //when&then
+        mockMvc.perform(post("/passMessages.do")
+                        .param("messageIDs", "1", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['1']").value(true))
+                .andExpect(jsonPath("$['2']").value(false));
+
+        verify(messageService, times(1)).confirmMessages(Arrays.asList(1, 2));
+    }
+
+    @Test
+    void testRejectMessages_valid_OK() throws Exception {
+        Map<Integer, Boolean> outcome = new LinkedHashMap<>();
+        outcome.put(3, true);
+
+        // given
+        when(messageService.rejectMessages(Collections.singletonList(3))).thenReturn(outcome);
+
+        //when&then
+        mockMvc.perform(post("/rejectMessages.do")
+                        .param("messageIDs", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['3']").value(true));
+
+        verify(messageService, times(1)).rejectMessages(Collections.singletonList(3));
+    }
+}
@@ -1,6 +1,7 @@
 package com.demo.controller.admin;
 
 import com.demo.entity.Order;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.entity.vo.OrderVo;
 import com.demo.service.OrderService;
 import com.demo.service.OrderVoService;
@@ -16,11 +17,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.ui.Model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.demo.service.OrderService.STATE_WAIT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
@@ -48,20 +53,35 @@ public class AdminOrderControllerTest {
     void testReservationManage() {
         List<Order> orders = new ArrayList<Order>();
         List<OrderVo> orderVos = new ArrayList<OrderVo>();
-        Page<Order> orderPage = mock(Page.class);
-        when(orderService.findAuditOrder()).thenReturn(orders);
+        when(orderService.findAuditOrder(null, 10)).thenReturn(new KeysetPage<>(orders, "next"));
         when(orderVoService.returnVo(orders)).thenReturn(orderVos);
-        when(orderService.findNoAuditOrder(any(Pageable.class))).thenReturn(orderPage);
-        when(orderPage.getTotalPages()).thenReturn(1);
+        when(orderService.countNoAuditOrder()).thenReturn(7L);
 
         String result = adminOrderController.reservation_manage(model);
         assertEquals("admin/reservation_manage", result);
 
         // 验证模拟的 Model 对象是否按预期添加了属性
         verify(model).addAttribute(eq("order_list"), eq(orderVos));
+        verify(model).addAttribute(eq("order_next"), eq("next"));
         verify(model).addAttribute(eq("total"), eq(1));
     }
 
+    // 按游标加载已审核订单
+    @Test
+    void testGetAuditOrder() {
+        List<Order> orders = new ArrayList<Order>();
+        orders.add(new Order());
+        List<OrderVo> orderVos = new ArrayList<OrderVo>();
+        orderVos.add(new OrderVo());
+        when(orderService.findAuditOrder("cursor", 10)).thenReturn(new KeysetPage<>(orders, null));
+        when(orderVoService.returnVo(orders)).thenReturn(orderVos);
+
+        KeysetPage<OrderVo> result = adminOrderController.getAuditOrder("cursor");
+
+        assertEquals(orderVos, result.getContent());
+        assertNull(result.getNext());
+    }
+
     // 正常返回
     @Test
     void testGetNoAuditOrder() {
@@ -162,13 +182,36 @@ public class AdminOrderControllerTest {
             assert e.getMessage().equals("订单状态不为待审核");
         }
     }
-}
-
-
-
-
-
 
+    // 批量通过，返回每个订单的结果
+    @Test
+    void testConfirmOrders() {
+        List<Integer> orderIDs = Arrays.asList(1, 2, 3);
+        Map<Integer, Boolean> outcome = new LinkedHashMap<>();
+        outcome.put(1, true);
+        outcome.put(2, false);
+        outcome.put(3, true);
+        when(orderService.confirmOrders(orderIDs)).thenReturn(outcome);
+
+        Map<Integer, Boolean> result = adminOrderController.confirmOrders(orderIDs);
+
+        assertEquals(outcome, result);
+        verify(orderService, times(1)).confirmOrders(orderIDs);
+        verify(orderService, never()).confirmOrder(anyInt());
+    }
 
+    // 批量拒绝，返回每个订单的结果
+    @Test
+    void testRejectOrders() {
+        List<Integer> orderIDs = Arrays.asList(4, 5);
+        Map<Integer, Boolean> outcome = new LinkedHashMap<>();
+        outcome.put(4, true);
+        outcome.put(5, true);
+        when(orderService.rejectOrders(orderIDs)).thenReturn(outcome);
 
+        Map<Integer, Boolean> result = adminOrderController.rejectOrders(orderIDs);
 
+        assertEquals(outcome, result);
+        verify(orderService, never()).rejectOrder(anyInt());
+    }
+}
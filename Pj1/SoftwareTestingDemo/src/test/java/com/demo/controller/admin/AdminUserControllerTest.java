@@ -10,9 +10,12 @@ import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.util.NestedServletException;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -22,8 +25,10 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
@@ -43,35 +48,25 @@ public class AdminUserControllerTest {
 
     @Test
     public void testUserManage_valid() throws Exception {
-        List<User> userList = IntStream.range(0, 11)
-                .mapToObj(i -> new User(i, "123", "abc", "123456", "a@qq.com", "12345678901", 0, "123.jpg"))
-                .collect(Collectors.toList());
-
-        Pageable user_pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
-        Page<User> mockPage = new PageImpl<>(userList, user_pageable, userList.size());
-
-        when(userService.findByUserID(user_pageable)).thenReturn(mockPage);
+        when(userService.countUser()).thenReturn(11L);
 
         mockMvc.perform(get("/user_manage"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("admin/user_manage"))
                 .andExpect(model().attribute("total", 2));// 11条数据，每页10条，共有两页
 
-        verify(userService).findByUserID(user_pageable);
+        verify(userService).countUser();
     }
     @Test
     public void testUserManage_emptyPage() throws Exception {
-        Pageable user_pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
-        Page<User> emptyPage = new PageImpl<>(Collections.emptyList(), user_pageable, 0);
-
-        when(userService.findByUserID(user_pageable)).thenReturn(emptyPage);
+        when(userService.countUser()).thenReturn(0L);
 
         mockMvc.perform(get("/user_manage"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("admin/user_manage"))
                 .andExpect(model().attribute("total", 0));
 
-        verify(userService).findByUserID(user_pageable);
+        verify(userService).countUser();
     }
 
     @Test
@@ -245,6 +240,29 @@ public class AdminUserControllerTest {
         verify(userService).create(new User(0, "123", "abc", "", "a@qq.com", "12345678901", 0, ""));
     }
 
+    @Test
+    public void testImportUsers() throws Exception {
+        String csv = "# userID,userName,password,email,phone\nu1,name1,pwd1,a@qq.com,123\n\nu2,name2,pwd2\n";
+        when(userService.importUsers(anyList())).thenReturn(2);
+
+        mockMvc.perform(multipart("/importUsers.do")
+                        .file(new MockMultipartFile("file", "users.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        verify(userService).importUsers(Arrays.asList(
+                new User(0, "u1", "name1", "pwd1", "a@qq.com", "123", 0, ""),
+                new User(0, "u2", "name2", "pwd2", "", "", 0, "")));
+    }
+
+    @Test
+    public void testImportUsers_badLine() {
+        MockMultipartFile file = new MockMultipartFile("file", "users.csv", "text/csv", "u1\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(NestedServletException.class, () -> mockMvc.perform(multipart("/importUsers.do").file(file)));
+        verify(userService, never()).importUsers(anyList());
+    }
+
     @Test
     public void testCheckUserID_already_new() throws Exception {
         when(userService.countUserID("already")).thenReturn(1); // 已经存在该userID
@@ -88,18 +88,14 @@ class AdminVenueControllerTest {
 
     @Test
     void testVenueManage_normalList_ok() throws Exception {
-        List<Venue> venues = new ArrayList<>();
-        venues.add(venue1);
-        Pageable pageable = PageRequest.of(0, 10, Sort.by("venueID").ascending());
-
-        when(venueService.findAll(any())).thenReturn(new PageImpl<>(venues, pageable, 1));
+        when(venueService.countAll()).thenReturn(1L);
 
         mockMvc.perform(get("/venue_manage"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("admin/venue_manage"))
                 .andExpect(model().attribute("total", 1));
 
-        verify(venueService).findAll(any());
+        verify(venueService).countAll();
     }
 
     @Test
@@ -99,6 +99,7 @@ class MessageControllerTest {
         //given
 
         when(messageService.findPassState(any())).thenReturn(messagesPage);
+        when(messageService.countPassState()).thenReturn((long) messages.size());
         when(messageVoService.returnVo(any())).thenReturn(messageVos);
         when(messageService.findByUser(any(), any())).thenReturn(new PageImpl<>(messages, user_message_pageable,
                 messages.size()));
@@ -3,6 +3,7 @@ package com.demo.controller.user;
 import com.demo.controller.user.NewsController;
 import com.demo.entity.News;
 import com.demo.entity.User;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.service.NewsService;
 import com.demo.service.UserService;
 import org.junit.jupiter.api.Test;
@@ -92,6 +93,53 @@ class NewsControllerTest {
         verify(newsService, times(1)).findAll(pageable);
     }
 
+    @Test
+    public void testGetNewsList_after() throws Exception {
+        News news1 = new News(1, "title1", "content 1", LocalDateTime.now());
+        when(newsService.findAll("cursor", 5)).thenReturn(new KeysetPage<>(Arrays.asList(news1), "next"));
+
+        mockMvc.perform(get("/news/getNewsList").param("after", "cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].newsID", is(1)))
+                .andExpect(jsonPath("$.next", is("next")));
+
+        verify(newsService, times(1)).findAll("cursor", 5);
+        verify(newsService, never()).findAll(any(Pageable.class));
+    }
+
+    // 新闻没有变化时返回304，不再查询
+    @Test
+    public void testGetNewsList_notModified() throws Exception {
+        when(newsService.version()).thenReturn(7L);
+
+        mockMvc.perform(get("/news/getNewsList").param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"news-7-1\""));
+        mockMvc.perform(get("/news/getNewsList").param("page", "1").header("If-None-Match", "\"news-7-1\""))
+                .andExpect(status().isNotModified());
+
+        verify(newsService, times(1)).findAll(any(Pageable.class));
+    }
+
+    // ETag按页区分，其他页带着第一页的ETag仍然返回内容
+    @Test
+    public void testGetNewsList_otherPageModified() throws Exception {
+        when(newsService.version()).thenReturn(7L);
+        when(newsService.findAll(any())).thenReturn(new PageImpl<>(Arrays.asList(), PageRequest.of(1, 5), 5));
+        when(newsService.findAll("cursor", 5)).thenReturn(new KeysetPage<>(Arrays.asList(), null));
+
+        mockMvc.perform(get("/news/getNewsList").param("page", "2").header("If-None-Match", "\"news-7-1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"news-7-2\""));
+        mockMvc.perform(get("/news/getNewsList").param("after", "cursor").header("If-None-Match", "\"news-7-1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"news-7-after-cursor\""));
+
+        verify(newsService, times(1)).findAll(any(Pageable.class));
+        verify(newsService, times(1)).findAll("cursor", 5);
+    }
+
     @Test
     public void testGetNewsList_empty() throws Exception {
         int page = 1;
@@ -136,14 +184,16 @@ class NewsControllerTest {
         Pageable news_pageable = PageRequest.of(0, 5, Sort.by("time").descending());
 
         when(newsService.findAll(news_pageable)).thenReturn(new PageImpl<>(news_list, news_pageable, 2));
+        when(newsService.countAll()).thenReturn(6L);
 
         mockMvc.perform(get("/news_list"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("news_list"))
                 .andExpect(model().attribute("news_list", news_list))
-                .andExpect(model().attribute("total", newsService.findAll(news_pageable).getTotalPages()));
+                .andExpect(model().attribute("total", 2));
 
-        verify(newsService, times(3)).findAll(news_pageable);
+        verify(newsService, times(1)).findAll(news_pageable);
+        verify(newsService, times(1)).countAll();
     }
 
     @Test
@@ -1,9 +1,11 @@
 package com.demo.controller.user;
 
-import com.demo.entity.User;
 import com.demo.entity.Venue;
 import com.demo.entity.Order;
+import com.demo.entity.vo.KeysetPage;
 import com.demo.entity.vo.OrderVo;
+import com.demo.entity.vo.SessionUser;
+import com.demo.entity.vo.VenueAvailability;
 import com.demo.entity.vo.VenueOrder;
 import com.demo.service.OrderService;
 import com.demo.service.OrderVoService;
@@ -15,13 +17,15 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.ui.Model;
+import org.springframework.web.server.ResponseStatusException;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
+import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.demo.service.OrderService.STATE_FINISH;
@@ -42,24 +46,15 @@ public class OrderControllerTest {
     @Mock
     VenueService venueService;
 
-    @Mock
-    HttpServletRequest request;
-
-    @Mock
-    HttpSession session;
-
     @Mock
     Model model;
 
+    SessionUser user = new SessionUser(1, "test", "test", 0, "");
+
     // 初始化
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.initMocks(this);
-
-        when(request.getSession()).thenReturn(session);
-        User user = new User();
-        user.setUserID("test");
-        when(session.getAttribute("user")).thenReturn(user);
     }
 
     // 已登陆，mock页数为3，正常返回
@@ -73,26 +68,13 @@ public class OrderControllerTest {
         when(orderService.findUserOrder(eq("test"), any(Pageable.class))).thenReturn(mockPage);
 
         // 调用被测试方法
-        String result = orderController.order_manage(model, request);
+        String result = orderController.order_manage(model, user);
 
         // 验证行为
         verify(model).addAttribute(eq("total"), eq(3)); // 验证模型数据是否正确添加
         assertEquals("order_manage", result); // 验证返回的视图名称是否正确
     }
 
-    // 未登陆，抛出异常
-    @Test
-    void testOrderManageNotLogin() {
-        // 模拟HttpServletRequest会话
-        when(session.getAttribute("user")).thenReturn(null);
-
-        // 调用被测试方法
-        try {
-            orderController.order_manage(model, request);
-        } catch (Exception e) {
-            assertEquals("请登录！", e.getMessage()); // 验证是否抛出异常
-        }
-    }
 
     // 正常返回
     @Test
@@ -141,32 +123,19 @@ public class OrderControllerTest {
         when(orderService.findUserOrder(eq("test"), any(Pageable.class))).thenReturn(mockPage);
 
         // 调用被测试方法
-        List<OrderVo> result = orderController.order_list(1, request);
+        List<OrderVo> result = orderController.order_list(1, user);
 
         // 验证行为
         verify(orderVoService).returnVo(eq(mockPage.getContent())); // 验证是否调用了orderVoService.returnVo方法
     }
 
-    // 未登录
-    @Test
-    void testOrderListNotLogin() {
-        // 模拟HttpServletRequest会话
-        when(session.getAttribute("user")).thenReturn(null);
-
-        // 调用被测试方法
-        try {
-            orderController.order_list(1, request);
-        } catch (Exception e) {
-            assertEquals("请登录！", e.getMessage()); // 验证是否抛出异常
-        }
-    }
 
     // 参数page为0（当前存在错误）
     @Test
     void testOrderListPageMinus1() {
         // 使用 assertThrows 检测是否抛出 IllegalArgumentException
         assertThrows(IllegalArgumentException.class, () -> {
-            orderController.order_list(0, request);
+            orderController.order_list(0, user);
         });
     }
 
@@ -175,7 +144,7 @@ public class OrderControllerTest {
     void testOrderListPageExceedTotal() {
         when(orderService.findUserOrder(eq("test"), any(Pageable.class))).thenReturn(null);
         try {
-            orderController.order_list(2, request);
+            orderController.order_list(2, user);
         } catch (Exception e) {
             assertEquals("Cannot invoke \"org.springframework.data.domain.Page.getContent()\" because \"page1\" is null", e.getMessage()); // 验证是否抛出异常
         }
@@ -190,7 +159,7 @@ public class OrderControllerTest {
         HttpServletResponse response = mock(HttpServletResponse.class);
 
         // 调用被测试方法
-        orderController.addOrder("test", "", "2021-01-01 12:00", 1, request, response);
+        orderController.addOrder("test", "", "2021-01-01 12:00", 1, user, response);
 
         // 验证行为
         verify(orderService).submit(eq("test"), any(), eq(1), eq("test")); // 验证是否调用了orderService.submit方法
@@ -202,7 +171,7 @@ public class OrderControllerTest {
     @Test
     void testAddOrderInvalidTime() {
         assertThrows(DateTimeParseException.class, () -> {
-            orderController.addOrder("test", "", "2021-01-01", 1, request, mock(HttpServletResponse.class));
+            orderController.addOrder("test", "", "2021-01-01", 1, user, mock(HttpServletResponse.class));
         });
     }
 
@@ -210,33 +179,20 @@ public class OrderControllerTest {
     @Test
     void testAddOrderNegativeHours() {
         try {
-            orderController.addOrder("test", "", "2024-01-01 12:00", -1, request, mock(HttpServletResponse.class));
+            orderController.addOrder("test", "", "2024-01-01 12:00", -1, user, mock(HttpServletResponse.class));
             System.out.println("No problem");
         } catch (Exception e) {
             assertEquals("hours不能为负数", e.getMessage()); // 验证是否抛出异常
         }
     }
 
-    // 未登录
-    @Test
-    void testAddOrderNotLogin() {
-        // 模拟HttpServletRequest会话
-        when(session.getAttribute("user")).thenReturn(null);
-
-        // 调用被测试方法
-        try {
-            orderController.addOrder("test", "", "2024-01-01 12:00", 1, request, mock(HttpServletResponse.class));
-        } catch (Exception e) {
-            assertEquals("请登录！", e.getMessage()); // 验证是否抛出异常
-        }
-    }
 
     // venueName不存在（当前存在错误）
     @Test
     void testAddOrderInvalidVenueName() {
         // 调用被测试方法
         try {
-            orderController.addOrder("test", "", "2024-01-01 12:00", 1, request, mock(HttpServletResponse.class));
+            orderController.addOrder("test", "", "2024-01-01 12:00", 1, user, mock(HttpServletResponse.class));
             System.out.println("No problem");
         } catch (Exception e) {
             assertEquals("场馆不存在", e.getMessage()); // 验证是否抛出异常
@@ -248,7 +204,7 @@ public class OrderControllerTest {
     void testAddOrderInvalidTime2() {
         // 调用被测试方法
         try {
-            orderController.addOrder("test", "", "2023-01-01 12:00", 1, request, mock(HttpServletResponse.class));
+            orderController.addOrder("test", "", "2023-01-01 12:00", 1, user, mock(HttpServletResponse.class));
             System.out.println("No problem");
         } catch (Exception e) {
             assertEquals("时间错误", e.getMessage()); // 验证是否抛出异常
@@ -261,8 +217,8 @@ public class OrderControllerTest {
         doNothing().when(orderService).submit(eq("test"), any(), eq(1), eq("test"));
 
         try {
-            orderController.addOrder("test", "", "2024-01-01 12:00", 1, request, mock(HttpServletResponse.class));
-            orderController.addOrder("test", "", "2024-01-01 12:00", 1, request, mock(HttpServletResponse.class));
+            orderController.addOrder("test", "", "2024-01-01 12:00", 1, user, mock(HttpServletResponse.class));
+            orderController.addOrder("test", "", "2024-01-01 12:00", 1, user, mock(HttpServletResponse.class));
             System.out.println("No problem");
         } catch (Exception e) {
             assertEquals("时间错误", e.getMessage()); // 验证是否抛出异常
@@ -379,7 +335,7 @@ public class OrderControllerTest {
         HttpServletResponse response = mock(HttpServletResponse.class);
 
         // 调用被测试方法
-        boolean result = orderController.modifyOrder("test", "", "2021-01-01 12:00", 1, 1, request, response);
+        boolean result = orderController.modifyOrder("test", "", "2021-01-01 12:00", 1, 1, user, response);
 
         // 验证行为
         verify(orderService).updateOrder(eq(1), eq("test"), any(), eq(1), eq("test")); // 验证是否调用了orderService.updateOrder方法
@@ -392,29 +348,16 @@ public class OrderControllerTest {
     @Test
     void testModifyOrderInvalidTime() {
         assertThrows(DateTimeParseException.class, () -> {
-            orderController.modifyOrder("test", "", "2021-01-01", 1, 1, request, mock(HttpServletResponse.class));
+            orderController.modifyOrder("test", "", "2021-01-01", 1, 1, user, mock(HttpServletResponse.class));
         });
     }
 
-    // 未登录
-    @Test
-    void testModifyOrderNotLogin() {
-        // 模拟HttpServletRequest会话
-        when(session.getAttribute("user")).thenReturn(null);
-
-        // 调用被测试方法
-        try {
-            orderController.modifyOrder("test", "", "2021-01-01 12:00", 1, 1, request, mock(HttpServletResponse.class));
-        } catch (Exception e) {
-            assertEquals("请登录！", e.getMessage()); // 验证是否抛出异常
-        }
-    }
 
     // hours为负数（当前存在错误）
     @Test
     void testModifyOrderNegativeHours() {
         try {
-            orderController.modifyOrder("test", "", "2024-01-01 12:00", -1, 1, request, mock(HttpServletResponse.class));
+            orderController.modifyOrder("test", "", "2024-01-01 12:00", -1, 1, user, mock(HttpServletResponse.class));
             System.out.println("No problem");
         } catch (Exception e) {
             assertEquals("hours不能为负数", e.getMessage()); // 验证是否抛出异常
@@ -427,7 +370,7 @@ public class OrderControllerTest {
         when(venueService.findByVenueName("test")).thenReturn(null);
         // 调用被测试方法
         try {
-            orderController.modifyOrder("test", "", "2024-01-01 12:00", 1, 1, request, mock(HttpServletResponse.class));
+            orderController.modifyOrder("test", "", "2024-01-01 12:00", 1, 1, user, mock(HttpServletResponse.class));
             System.out.println("No problem");
         } catch (Exception e) {
             assertEquals("场馆不存在", e.getMessage()); // 验证是否抛出异常
@@ -442,7 +385,7 @@ public class OrderControllerTest {
 
         // 调用被测试方法
         try {
-            orderController.modifyOrder("test", "", "2024-01-01 12:00", 1, 1, request, mock(HttpServletResponse.class));
+            orderController.modifyOrder("test", "", "2024-01-01 12:00", 1, 1, user, mock(HttpServletResponse.class));
             System.out.println("No problem");
         } catch (Exception e) {
             assertEquals("订单不存在", e.getMessage()); // 验证是否抛出异常
@@ -457,7 +400,7 @@ public class OrderControllerTest {
 
         // 调用被测试方法
         try {
-            orderController.modifyOrder("test", "", "2023-01-01 12:00", 1, 1, request, mock(HttpServletResponse.class));
+            orderController.modifyOrder("test", "", "2023-01-01 12:00", 1, 1, user, mock(HttpServletResponse.class));
             System.out.println("No problem");
         } catch (Exception e) {
             assertEquals("时间错误", e.getMessage()); // 验证是否抛出异常
@@ -470,8 +413,8 @@ public class OrderControllerTest {
         doNothing().when(orderService).updateOrder(eq(1), eq("test"), any(), eq(1), eq("test"));
 
         try {
-            orderController.addOrder("test", "", "2024-01-01 12:00", 1, request, mock(HttpServletResponse.class));
-            orderController.modifyOrder("test", "", "2024-01-01 12:00", 1, 10, request, mock(HttpServletResponse.class));
+            orderController.addOrder("test", "", "2024-01-01 12:00", 1, user, mock(HttpServletResponse.class));
+            orderController.modifyOrder("test", "", "2024-01-01 12:00", 1, 10, user, mock(HttpServletResponse.class));
             System.out.println("No problem");
         } catch (Exception e) {
             assertEquals("时间错误", e.getMessage()); // 验证是否抛出异常
@@ -551,5 +494,56 @@ public class OrderControllerTest {
             assertEquals("Text '2021-01-01 12:00 00:00:00' could not be parsed at index 16", e.getMessage()); // 验证是否抛出异常
         }
     }
-}
 
+    // 游标分页查看用户订单
+    @Test
+    void testOrderListAfter() {
+        List<Order> orders = new ArrayList<>();
+        orders.add(new Order());
+        List<OrderVo> orderVos = new ArrayList<>();
+        orderVos.add(new OrderVo());
+        when(orderService.findUserOrder("test", "cursor", 5)).thenReturn(new KeysetPage<>(orders, "next"));
+        when(orderVoService.returnVo(orders)).thenReturn(orderVos);
+
+        KeysetPage<OrderVo> result = orderController.order_list("cursor", user);
+
+        assertEquals(orderVos, result.getContent());
+        assertEquals("next", result.getNext());
+    }
+
+
+    // 时段占用从内存索引读取，不查询订单
+    @Test
+    void testGetAvailability() {
+        Venue venue = new Venue(3, "test", "", 100, "", "", "08:00", "20:00");
+        when(venueService.findByVenueName("test")).thenReturn(venue);
+        LocalDate day = LocalDate.now().plusDays(1);
+        when(orderService.findOccupiedHours(3, day)).thenReturn((1 << 9) | (1 << 10) | (1 << 15));
+
+        VenueAvailability result = orderController.getAvailability("test", day.toString());
+
+        assertEquals(Arrays.asList(9, 10, 15), result.getOccupied());
+        assertEquals("08:00", result.getOpen_time());
+        verify(orderService, never()).findDateOrder(anyInt(), any(), any());
+    }
+
+    // 场馆不存在
+    @Test
+    void testGetAvailabilityInvalidVenueName() {
+        when(venueService.findByVenueName("test")).thenReturn(null);
+
+        assertNull(orderController.getAvailability("test", LocalDate.now().toString()));
+    }
+
+    // 日期格式错误或不在可预订范围内返回400，不查询索引
+    @Test
+    void testGetAvailabilityInvalidDate() {
+        for (String date : Arrays.asList(null, "", "2021-13-01", "tomorrow",
+                LocalDate.now().minusDays(1).toString(), LocalDate.now().plusDays(91).toString())) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> orderController.getAvailability("test", date));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        }
+        verifyNoInteractions(orderService);
+    }
+}
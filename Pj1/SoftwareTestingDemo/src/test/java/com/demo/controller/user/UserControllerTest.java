@@ -2,8 +2,10 @@ package com.demo;
 
 import com.demo.controller.user.UserController;
 import com.demo.entity.User;
+import com.demo.entity.vo.SessionUser;
 import com.demo.service.UserService;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -61,7 +63,7 @@ public class UserControllerTest {
                         .param("password","123456"))
                 .andExpect(status().isOk())
                 .andExpect(content().string("/index"))
-                .andExpect(request().sessionAttribute("user", user));   // 验证登录成功，session记录了user状态
+                .andExpect(request().sessionAttribute("user", SessionUser.of(user)));   // 验证登录成功，session记录了user状态
 
         verify(userService).checkLogin("123","123456");
     }
@@ -77,11 +79,27 @@ public class UserControllerTest {
                         .param("password","123456"))
                 .andExpect(status().isOk())
                 .andExpect(content().string("/admin_index"))
-                .andExpect(request().sessionAttribute("admin", admin)); // 验证登录成功，session记录了admin状态
+                .andExpect(request().sessionAttribute("admin", SessionUser.of(admin))); // 验证登录成功，session记录了admin状态
 
         verify(userService).checkLogin("123","123456");
     }
 
+    @Test
+    public void testLoginCheck_alreadyLoggedIn() throws Exception {
+        User user = new User(1, "123", "123", "123456", "a@qq.com", "12345678901", 0, "123.jpg");
+        MockHttpSession mockHttpSession = new MockHttpSession();
+        mockHttpSession.setAttribute("user", user);
+
+        mockMvc.perform(post("/loginCheck.do")
+                        .session(mockHttpSession)
+                        .param("userID","123")
+                        .param("password","123456"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("/index"));
+
+        verify(userService, never()).checkLogin(any(), any());  // 会话已登录，不再校验密码
+    }
+
     @Test
     public void testLoginCheck_fail() throws Exception {
         when(userService.checkLogin("123","123456")).thenReturn(null);
@@ -252,7 +270,10 @@ public class UserControllerTest {
                 .andExpect(status().is3xxRedirection())
                 .andExpect(redirectedUrl("user_info"));
 
-        User updatedUser = (User) mockHttpSession.getAttribute("user");
+        ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
+        verify(userService).updateUser(captor.capture());
+        User updatedUser = captor.getValue();
+        assertEquals(SessionUser.of(updatedUser), mockHttpSession.getAttribute("user")); // session只保存登录信息
         assertEquals(updatedUser.getPassword(),"new");  // 验证密码被修改
         assertEquals(picture, updatedUser.getPicture());    // 验证图片未修改
         verify(userService).findByUserID("123");
@@ -280,7 +301,10 @@ public class UserControllerTest {
                 .andExpect(status().is3xxRedirection())
                 .andExpect(redirectedUrl("user_info"));
 
-        User updatedUser = (User) mockHttpSession.getAttribute("user");
+        ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
+        verify(userService).updateUser(captor.capture());
+        User updatedUser = captor.getValue();
+        assertEquals(SessionUser.of(updatedUser), mockHttpSession.getAttribute("user")); // session只保存登录信息
         assertEquals(updatedUser.getPassword(),"123456");   // 验证密码未修改
         assertNotEquals(oldPicture, updatedUser.getPicture());  // 验证图片被修改
         verify(userService).findByUserID("123");
@@ -307,7 +331,10 @@ public class UserControllerTest {
                         .param("phone", user.getPhone()))
                 .andExpect(status().is4xxClientError());
 
-        User updatedUser = (User) mockHttpSession.getAttribute("user");
+        ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
+        verify(userService).updateUser(captor.capture());
+        User updatedUser = captor.getValue();
+        assertEquals(SessionUser.of(updatedUser), mockHttpSession.getAttribute("user")); // session只保存登录信息
         assertEquals(updatedUser.getPassword(),"123456");
         assertEquals(picture, updatedUser.getPicture());    // 图片未修改
         verify(userService).findByUserID("123");
@@ -337,7 +364,10 @@ public class UserControllerTest {
                         .param("phone", user.getPhone()))
                 .andExpect(status().isBadRequest());
 
-        User updatedUser = (User) mockHttpSession.getAttribute("user");
+        ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
+        verify(userService).updateUser(captor.capture());
+        User updatedUser = captor.getValue();
+        assertEquals(SessionUser.of(updatedUser), mockHttpSession.getAttribute("user")); // session只保存登录信息
         assertEquals(updatedUser.getUserID(),"abc");    // 修改了abc用户的信息
         assertEquals(updatedUser.getPassword(),"new");  // 验证密码被修改
         assertEquals(picture, updatedUser.getPicture());    // 验证图片未修改
@@ -346,27 +376,26 @@ public class UserControllerTest {
 
     @Test
     public void testCheckPassword_different() throws Exception {
-        User user = new User(1, "123", "123", "123456", "a@qq.com", "12345678901", 0, "123.jpg");
-        when(userService.findByUserID("123")).thenReturn(user);
+        when(userService.checkLogin("123", "new123456")).thenReturn(null);
 
         mockMvc.perform(get("/checkPassword.do")
                         .param("userID","123")
                         .param("password","new123456")) // 与原密码不同
                 .andExpect(status().isOk())
                 .andExpect(content().string("false"));
-        verify(userService).findByUserID("123");
+        verify(userService).checkLogin("123", "new123456");
     }
     @Test
     public void testCheckPassword_same() throws Exception {
         User user = new User(1, "123", "123", "123456", "a@qq.com", "12345678901", 0, "123.jpg");
-        when(userService.findByUserID("123")).thenReturn(user);
+        when(userService.checkLogin("123", "123456")).thenReturn(user);
 
         mockMvc.perform(get("/checkPassword.do")
                         .param("userID","123")
                         .param("password","123456"))    // 与原密码相同
                 .andExpect(status().isOk())
                 .andExpect(content().string("true"));
-        verify(userService).findByUserID("123");
+        verify(userService).checkLogin("123", "123456");
     }
 
     @Test
@@ -375,10 +404,14 @@ public class UserControllerTest {
         MockHttpSession mockHttpSession = new MockHttpSession();
         mockHttpSession.setAttribute("user",user);
 
+        when(userService.findById(1)).thenReturn(user);
+
         mockMvc.perform(get("/user_info")
                         .session(mockHttpSession))  // 在登录状态下访问
                 .andExpect(status().isOk())
-                .andExpect(view().name("user_info"));
+                .andExpect(view().name("user_info"))
+                .andExpect(model().attribute("user", user));   // 完整用户信息按需读取
+        verify(userService).findById(1);
     }
     @Test
     public void testUserInfo_logout() throws Exception {
@@ -100,6 +100,7 @@ class VenueControllerTest {
         Page<Venue> venuePage = new PageImpl<>(venueList);
 
         when(venueService.findAll(any(Pageable.class))).thenReturn(venuePage);
+        when(venueService.countAll()).thenReturn(2L);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/venue_list"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
@@ -116,6 +117,7 @@ class VenueControllerTest {
         Page<Venue> venuePage = new PageImpl<>(venueList);
 
         when(venueService.findAll(any(Pageable.class))).thenReturn(venuePage);
+        when(venueService.countAll()).thenReturn(0L);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/venue_list"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
@@ -123,7 +125,7 @@ class VenueControllerTest {
                 .andExpect(MockMvcResultMatchers.model().attributeExists("venue_list"))
                 .andExpect(MockMvcResultMatchers.model().attribute("venue_list", venueList))
                 .andExpect(MockMvcResultMatchers.model().attributeExists("total"))
-                .andExpect(MockMvcResultMatchers.model().attribute("total", 1));
+                .andExpect(MockMvcResultMatchers.model().attribute("total", 0));
     }
 
     @Test
@@ -0,0 +1,67 @@
+package com.demo.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 负载测试基线
+ * 每个接口记录 <接口>.p99Millis 和 <接口>.rps，p99超过基线或吞吐量低于基线超过容差时视为退化。
+ * 基线中没有的接口只输出结果，不检查。
+ */
+public class Baseline {
+    private final Properties values = new Properties();
+
+    public static Baseline load(InputStream in) throws IOException {
+        Baseline baseline = new Baseline();
+        if (in != null) {
+            try (InputStream input = in) {
+                baseline.values.load(input);
+            }
+        }
+        return baseline;
+    }
+
+    /**
+     * @return 退化描述，没有退化时为空
+     */
+    public List<String> regressions(Map<String, LoadRecorder.EndpointResult> results, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        results.forEach((endpoint, result) -> {
+            String p99 = values.getProperty(key(endpoint, "p99Millis"));
+            if (p99 != null && result.getP99Millis() > Double.parseDouble(p99) * (1 + tolerance)) {
+                regressions.add(String.format("%s p99 %.2fms > baseline %sms", endpoint, result.getP99Millis(), p99));
+            }
+            String rps = values.getProperty(key(endpoint, "rps"));
+            if (rps != null && result.getRps() < Double.parseDouble(rps) * (1 - tolerance)) {
+                regressions.add(String.format("%s %.1f req/s < baseline %s req/s", endpoint, result.getRps(), rps));
+            }
+        });
+        return regressions;
+    }
+
+    public static void write(Map<String, LoadRecorder.EndpointResult> results, Path file) throws IOException {
+        Properties properties = new Properties();
+        results.forEach((endpoint, result) -> {
+            properties.setProperty(key(endpoint, "p99Millis"), String.format("%.2f", result.getP99Millis()));
+            properties.setProperty(key(endpoint, "rps"), String.format("%.1f", result.getRps()));
+        });
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "load test results");
+        }
+    }
+
+    /**
+     * 接口名中的空格在properties中替换为下划线，如 POST_/addOrder.do.p99Millis
+     */
+    private static String key(String endpoint, String metric) {
+        return endpoint.replace(' ', '_') + "." + metric;
+    }
+}
@@ -0,0 +1,46 @@
+package com.demo.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BaselineTest {
+
+    private Map<String, LoadRecorder.EndpointResult> results(long latencyMillis, int requests) {
+        LoadRecorder recorder = new LoadRecorder();
+        for (int i = 0; i < requests; i++) {
+            recorder.record("POST /addOrder.do", TimeUnit.MILLISECONDS.toNanos(latencyMillis), true);
+        }
+        return recorder.results(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private Baseline baseline() throws Exception {
+        String properties = "POST_/addOrder.do.p99Millis=10\nPOST_/addOrder.do.rps=100\n";
+        return Baseline.load(new ByteArrayInputStream(properties.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // 容差范围内不算退化
+    @Test
+    void testWithinTolerance() throws Exception {
+        assertTrue(baseline().regressions(results(12, 80), 0.25).isEmpty());
+    }
+
+    // 延迟变高、吞吐量下降都算退化
+    @Test
+    void testRegression() throws Exception {
+        List<String> regressions = baseline().regressions(results(20, 50), 0.25);
+        assertEquals(2, regressions.size());
+    }
+
+    // 基线中没有的接口不检查
+    @Test
+    void testEmptyBaseline() throws Exception {
+        assertTrue(Baseline.load(null).regressions(results(1000, 1), 0.25).isEmpty());
+    }
+}
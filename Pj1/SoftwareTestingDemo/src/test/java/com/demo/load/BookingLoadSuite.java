@@ -0,0 +1,230 @@
+package com.demo.load;
+
+import com.demo.dao.OrderDao;
+import com.demo.entity.Order;
+import com.demo.entity.User;
+import com.demo.entity.Venue;
+import com.demo.service.OrderService;
+import com.demo.service.UserService;
+import com.demo.service.VenueService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 端到端负载测试：启动完整的应用，用并发的虚拟用户走真实的浏览、登录、预订和审核流程
+ * 不随普通测试运行，使用 mvn test -Ploadtest 执行，需要application.yml中配置的数据库，
+ * 可用-Dspring.datasource.url/username/password指定；数据库连不上时跳过，不启动应用。
+ * 测试数据使用本次运行独有的用户名和场馆名，结束后删除。
+ * 可用系统属性修改：loadtest.users(预订用户数，默认40)、loadtest.admins(审核管理员数，默认2)、
+ * loadtest.venues(场馆数，默认20)、loadtest.seconds(运行时长，默认30)、loadtest.tolerance(基线容差，默认0.25)；
+ * -Dloadtest.updateBaseline=true 用本次结果覆盖基线文件。
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class BookingLoadSuite {
+    private static final String BASELINE = "src/test/resources/loadtest/baseline.properties";
+    private static final String RESULTS = "target/loadtest/results.properties";
+    private static final String PASSWORD = "load-test";
+
+    private final int users = Integer.getInteger("loadtest.users", 40);
+    private final int admins = Integer.getInteger("loadtest.admins", 2);
+    private final int venueCount = Integer.getInteger("loadtest.venues", 20);
+    private final long seconds = Integer.getInteger("loadtest.seconds", 30);
+    private final double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.25"));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private VenueService venueService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderDao orderDao;
+
+    private final String run = Long.toString(System.currentTimeMillis(), 36);
+    private final List<User> accounts = new ArrayList<>();
+    private final List<Venue> venues = new ArrayList<>();
+    private final Set<String> venueNames = ConcurrentHashMap.newKeySet();
+    private final LocalDate firstDay = LocalDate.now().plusYears(5);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 在加载Spring上下文之前检查数据库，连不上时整个测试类跳过而不是报上下文加载失败
+     */
+    @BeforeAll
+    static void requireDatabase() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties config = yaml.getObject();
+        String url = System.getProperty("spring.datasource.url", config.getProperty("spring.datasource.url"));
+        String username = System.getProperty("spring.datasource.username", config.getProperty("spring.datasource.username"));
+        String password = System.getProperty("spring.datasource.password", config.getProperty("spring.datasource.password"));
+        assumeTrue(url != null && !url.isEmpty(), "没有配置spring.datasource.url，跳过负载测试");
+        DriverManager.setLoginTimeout(3);
+        try (Connection ignored = DriverManager.getConnection(url, username, password)) {
+            // 只检查能否连接
+        } catch (SQLException e) {
+            assumeTrue(false, "无法连接数据库" + url + "，跳过负载测试：" + e.getMessage());
+        }
+    }
+
+    @BeforeEach
+    public void seed() {
+        assertTrue(users <= venueCount * 12, "每个场馆每天只有12个时段");
+        for (int i = 0; i < venueCount; i++) {
+            Venue venue = new Venue(0, "load-" + run + "-venue" + i, "load test", 100, "", "", "08:00", "20:00");
+            venueService.create(venue);
+            venues.add(venue);
+            venueNames.add(venue.getVenueName());
+        }
+        for (int i = 0; i < users + admins; i++) {
+            User user = new User(0, "load-" + run + "-" + i, "load" + i, PASSWORD, "", "", i < users ? 0 : 1, "");
+            userService.create(user);
+            accounts.add(user);
+        }
+    }
+
+    /**
+     * 按场馆删除本次测试的全部订单，不限日期：每个用户预订的天数随运行时长增长，没有上限
+     * 通过service删除，同时更新占用索引和计数
+     */
+    @AfterEach
+    public void cleanUp() {
+        for (Venue venue : venues) {
+            for (Order order : orderDao.findAllByVenueID(venue.getVenueID())) {
+                orderService.delOrder(order.getOrderID());
+            }
+            venueService.delById(venue.getVenueID());
+        }
+        for (User user : accounts) {
+            userService.delByID(user.getId());
+        }
+    }
+
+    @Test
+    void bookingFlow() throws Exception {
+        LoadRecorder recorder = new LoadRecorder();
+        String baseUrl = "http://localhost:" + port;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService pool = Executors.newFixedThreadPool(users + admins);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < users; i++) {
+            int vu = i;
+            futures.add(pool.submit(() -> {
+                book(new VirtualUser(baseUrl, recorder), vu, deadline);
+                return null;
+            }));
+        }
+        for (int i = 0; i < admins; i++) {
+            int admin = i;
+            futures.add(pool.submit(() -> {
+                approve(new VirtualUser(baseUrl, recorder), admin, deadline);
+                return null;
+            }));
+        }
+        pool.shutdown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, LoadRecorder.EndpointResult> results = recorder.results(elapsed);
+        report(results);
+        Baseline.write(results, Paths.get(RESULTS));
+        if (Boolean.getBoolean("loadtest.updateBaseline")) {
+            Baseline.write(results, Paths.get(BASELINE));
+        }
+
+        int errors = results.values().stream().mapToInt(LoadRecorder.EndpointResult::getErrors).sum();
+        assertEquals(0, errors, "请求出错");
+        List<String> regressions = Baseline.load(getClass().getResourceAsStream("/loadtest/baseline.properties"))
+                .regressions(results, tolerance);
+        assertTrue(regressions.isEmpty(), String.join("\n", regressions));
+    }
+
+    /**
+     * 预订用户：先匿名浏览首页，登录后反复浏览首页、查看场馆当天的占用并预订
+     * 第vu个用户固定使用一个场馆的一个时段，每轮预订下一天，不会互相冲突。
+     */
+    private void book(VirtualUser user, int vu, long deadline) throws Exception {
+        Venue venue = venues.get(vu % venueCount);
+        int hour = 8 + vu / venueCount;
+        user.get("/index");
+        user.post("/loginCheck.do", "userID", accounts.get(vu).getUserID(), "password", PASSWORD);
+        for (int day = 0; System.nanoTime() < deadline; day++) {
+            LocalDate date = firstDay.plusDays(day);
+            user.get("/index");
+            // 日历只能查询可预订范围内的日期，预订放在几年后，避免和已有订单冲突
+            user.get("/order/getAvailability.do?venueName=" + venue.getVenueName() + "&date=" + LocalDate.now().plusDays(day % 90));
+            user.post("/addOrder.do", "venueName", venue.getVenueName(), "date", date.toString(),
+                    "startTime", date + " " + String.format("%02d:00", hour), "hours", "1");
+        }
+    }
+
+    /**
+     * 审核管理员：查看未审核订单，通过本次测试场馆的订单；多个管理员按订单号分工，不会重复审核
+     */
+    private void approve(VirtualUser admin, int index, long deadline) throws Exception {
+        admin.post("/loginCheck.do", "userID", accounts.get(users + index).getUserID(), "password", PASSWORD);
+        while (System.nanoTime() < deadline) {
+            String body = admin.get("/admin/getOrderList.do?page=1");
+            boolean approved = false;
+            if (body != null) {
+                for (JsonNode order : objectMapper.readTree(body)) {
+                    int orderID = order.get("orderID").asInt();
+                    if (venueNames.contains(order.get("venueName").asText()) && orderID % admins == index) {
+                        admin.post("/passOrder.do", "orderID", Integer.toString(orderID));
+                        approved = true;
+                    }
+                }
+            }
+            if (!approved) {
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private static void report(Map<String, LoadRecorder.EndpointResult> results) {
+        System.out.println(String.format("%-36s %10s %8s %10s %10s %10s", "Endpoint", "requests", "errors", "req/s", "p50(ms)", "p99(ms)"));
+        results.forEach((endpoint, result) -> System.out.println(String.format("%-36s %10d %8d %10.1f %10.2f %10.2f",
+                endpoint, result.getRequests(), result.getErrors(), result.getRps(), result.getP50Millis(), result.getP99Millis())));
+    }
+}
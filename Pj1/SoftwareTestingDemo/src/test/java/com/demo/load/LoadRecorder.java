@@ -0,0 +1,99 @@
+package com.demo.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按接口记录负载测试中每个请求的延迟和错误数
+ */
+public class LoadRecorder {
+    private final Map<String, Samples> endpoints = new TreeMap<>();
+
+    public void record(String endpoint, long nanos, boolean ok) {
+        Samples samples;
+        synchronized (endpoints) {
+            samples = endpoints.computeIfAbsent(endpoint, e -> new Samples());
+        }
+        samples.add(nanos, ok);
+    }
+
+    /**
+     * @param elapsedNanos 整个测试的运行时长，用于计算每秒请求数
+     */
+    public Map<String, EndpointResult> results(long elapsedNanos) {
+        Map<String, EndpointResult> results = new TreeMap<>();
+        synchronized (endpoints) {
+            endpoints.forEach((endpoint, samples) -> results.put(endpoint, samples.result(elapsedNanos)));
+        }
+        return results;
+    }
+
+    private static class Samples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void add(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        synchronized EndpointResult result(long elapsedNanos) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new EndpointResult(count, errors, count * 1e9 / elapsedNanos,
+                    percentileMillis(sorted, 50), percentileMillis(sorted, 99));
+        }
+
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(sorted.length * percentile / 100) - 1;
+            return sorted[Math.max(rank, 0)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    public static class EndpointResult {
+        private final int requests;
+        private final int errors;
+        private final double rps;
+        private final double p50Millis;
+        private final double p99Millis;
+
+        EndpointResult(int requests, int errors, double rps, double p50Millis, double p99Millis) {
+            this.requests = requests;
+            this.errors = errors;
+            this.rps = rps;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+        }
+
+        public int getRequests() {
+            return requests;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public double getRps() {
+            return rps;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+    }
+}
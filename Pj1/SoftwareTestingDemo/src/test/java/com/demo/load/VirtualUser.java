@@ -0,0 +1,100 @@
+package com.demo.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个虚拟用户：持有自己的会话Cookie，通过HTTP访问被测应用，每个请求的延迟记入LoadRecorder
+ * 不自动跟随重定向，只测量被请求接口本身。
+ */
+public class VirtualUser {
+    private final String baseUrl;
+    private final LoadRecorder recorder;
+    private String cookie;
+
+    public VirtualUser(String baseUrl, LoadRecorder recorder) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+    }
+
+    public String get(String path) throws IOException {
+        return request("GET", path, null);
+    }
+
+    /**
+     * @param form 参数名和参数值交替
+     */
+    public String post(String path, String... form) throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < form.length; i += 2) {
+            if (body.length() > 0) {
+                body.append('&');
+            }
+            body.append(form[i]).append('=').append(URLEncoder.encode(form[i + 1], "UTF-8"));
+        }
+        return request("POST", path, body.toString());
+    }
+
+    private String request(String method, String path, String body) throws IOException {
+        String endpoint = method + " " + (path.contains("?") ? path.substring(0, path.indexOf('?')) : path);
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setRequestMethod(method);
+            connection.setInstanceFollowRedirects(false);
+            if (cookie != null) {
+                connection.setRequestProperty("Cookie", cookie);
+            }
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            rememberCookie(connection.getHeaderFields());
+            String response = read(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            ok = status < 400;
+            return ok ? response : null;
+        } finally {
+            recorder.record(endpoint, System.nanoTime() - start, ok);
+        }
+    }
+
+    private void rememberCookie(Map<String, List<String>> headers) {
+        List<String> cookies = headers.get("Set-Cookie");
+        if (cookies == null) {
+            return;
+        }
+        for (String header : cookies) {
+            if (header.startsWith("JSESSIONID=")) {
+                cookie = header.substring(0, header.indexOf(';') > 0 ? header.indexOf(';') : header.length());
+            }
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = input.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
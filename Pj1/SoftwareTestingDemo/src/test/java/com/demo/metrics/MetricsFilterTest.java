@@ -0,0 +1,98 @@
+package com.demo.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class MetricsFilterTest {
+    private final EndpointMetrics metrics = new EndpointMetrics();
+    private final MetricsFilter filter = new MetricsFilter(metrics);
+
+    private DataSource dataSource() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        return (DataSource) new JdbcStatementCounter().postProcessAfterInitialization(target, "dataSource");
+    }
+
+    // 按请求映射汇总，统计请求内执行的语句数
+    @Test
+    void testRecordsStatementsPerEndpoint() throws Exception {
+        DataSource dataSource = dataSource();
+        HttpServlet handler = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/news/getNewsList");
+                try (Connection connection = dataSource.getConnection()) {
+                    connection.prepareStatement("select 1").executeQuery();
+                    connection.prepareStatement("select 2").executeQuery();
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/news/getNewsList");
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(handler));
+        }
+
+        EndpointTimer timer = metrics.timer("/news/getNewsList");
+        assertEquals(3, timer.getCount());
+        assertEquals(6, timer.getStatements().getSum());
+        assertEquals(2, timer.getStatements().getMax());
+        assertNull(RequestStats.current());
+    }
+
+    // 请求之外执行的语句不计入统计
+    @Test
+    void testStatementsOutsideRequestIgnored() throws Exception {
+        try (Connection connection = dataSource().getConnection()) {
+            connection.prepareStatement("select 1").executeQuery();
+        }
+        assertTrue(metrics.snapshot().isEmpty());
+    }
+
+    // 直方图的桶是累计值
+    @Test
+    void testHistogramBuckets() {
+        Histogram histogram = new Histogram(new long[]{1, 5, 10});
+        for (long value : new long[]{0, 1, 3, 7, 50}) {
+            histogram.record(value);
+        }
+
+        Map<String, Long> snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.get("le_1").longValue());
+        assertEquals(3, snapshot.get("le_5").longValue());
+        assertEquals(4, snapshot.get("le_10").longValue());
+        assertEquals(5, snapshot.get("le_inf").longValue());
+        assertEquals(61, snapshot.get("sum").longValue());
+        assertEquals(50, snapshot.get("max").longValue());
+    }
+
+    // 采样率：0不输出，n每n个请求输出一条
+    @Test
+    void testLogSampling() {
+        assertFalse(metrics.sample());
+        metrics.setLogSampleRate(2);
+        assertFalse(metrics.sample());
+        assertTrue(metrics.sample());
+        assertThrows(IllegalArgumentException.class, () -> metrics.setLogSampleRate(-1));
+    }
+}
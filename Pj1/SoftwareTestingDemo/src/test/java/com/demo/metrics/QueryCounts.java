@@ -0,0 +1,65 @@
+package com.demo.metrics;
+
+import org.mockito.stubbing.Answer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试中检查SQL语句数的工具
+ * 真实数据源下语句由JdbcStatementCounter统计；用Mock的DAO时用executes包装Answer，每次调用记为一条语句。
+ */
+public final class QueryCounts {
+
+    private QueryCounts() {
+    }
+
+    /**
+     * 在新的请求统计下执行action
+     */
+    public static RequestStats measure(Runnable action) {
+        RequestStats stats = RequestStats.start();
+        try {
+            action.run();
+        } finally {
+            RequestStats.end();
+        }
+        return stats;
+    }
+
+    public static RequestStats assertStatementsAtMost(int max, Runnable action) {
+        RequestStats stats = measure(action);
+        assertTrue(stats.getStatements() <= max,
+                "expected at most " + max + " statements but executed " + stats.getStatements());
+        return stats;
+    }
+
+    public static RequestStats assertEntityLoadsAtMost(int max, Runnable action) {
+        RequestStats stats = measure(action);
+        assertTrue(stats.getEntityLoads() <= max,
+                "expected at most " + max + " entity loads but loaded " + stats.getEntityLoads());
+        return stats;
+    }
+
+    /**
+     * 检查MetricsFilter记录的某个接口的单次请求最大语句数(MockMvc测试使用)
+     */
+    public static void assertEndpointStatementsAtMost(EndpointMetrics metrics, String endpoint, int max) {
+        EndpointTimer timer = metrics.timer(endpoint);
+        assertTrue(timer != null, "no requests recorded for " + endpoint);
+        assertTrue(timer.getStatements().getMax() <= max,
+                endpoint + " expected at most " + max + " statements but executed " + timer.getStatements().getMax());
+    }
+
+    /**
+     * Mock的DAO方法每次调用记为一条语句
+     */
+    public static <T> Answer<T> executes(Answer<T> answer) {
+        return invocation -> {
+            RequestStats stats = RequestStats.current();
+            if (stats != null) {
+                stats.statementExecuted(0);
+            }
+            return answer.answer(invocation);
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.demo.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CredentialServiceImplTest {
+    private final CredentialServiceImpl credentialService = new CredentialServiceImpl();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(credentialService, "strength", 4);
+        ReflectionTestUtils.setField(credentialService, "threads", 1);
+        ReflectionTestUtils.setField(credentialService, "queueSize", 1);
+        credentialService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        credentialService.shutdown();
+    }
+
+    // 哈希带算法前缀，每次盐不同
+    @Test
+    void testEncodeAndMatch() {
+        String hash = credentialService.encode("123456");
+
+        assertTrue(credentialService.isEncoded(hash));
+        assertNotEquals(hash, credentialService.encode("123456"));
+        assertTrue(credentialService.matches("123456", hash));
+        assertFalse(credentialService.matches("1234567", hash));
+        assertFalse(credentialService.needsUpgrade(hash));
+    }
+
+    // 兼容明文密码，需要迁移
+    @Test
+    void testLegacyPlainText() {
+        assertTrue(credentialService.matches("{noop}abc", "{noop}abc"));
+        assertTrue(credentialService.matches("123456", "123456"));
+        assertFalse(credentialService.matches("12345", "123456"));
+        assertTrue(credentialService.needsUpgrade("123456"));
+    }
+
+    // 强度提高后旧哈希需要迁移
+    @Test
+    void testStrengthUpgrade() {
+        String weak = credentialService.encode("123456");
+        credentialService.shutdown();
+        ReflectionTestUtils.setField(credentialService, "strength", 5);
+        credentialService.init();
+
+        assertTrue(credentialService.matches("123456", weak));
+        assertTrue(credentialService.needsUpgrade(weak));
+    }
+
+    // 线程池和队列都满时立即失败，不在请求线程上排队
+    @Test
+    void testRejectWhenSaturated() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(credentialService, "executor");
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> credentialService.matches("123456", "123456"));
+        assertEquals("登录繁忙，请稍后再试", e.getMessage());
+        release.countDown();
+    }
+
+    // 批量哈希在线程池中计算，顺序与参数相同，null保持为null
+    @Test
+    void testEncodeAll() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(credentialService, "executor");
+
+        List<String> hashes = credentialService.encodeAll(Arrays.asList("a", "b", null, "c"));
+
+        assertEquals(4, hashes.size());
+        assertTrue(credentialService.matches("a", hashes.get(0)));
+        assertTrue(credentialService.matches("b", hashes.get(1)));
+        assertNull(hashes.get(2));
+        assertTrue(credentialService.matches("c", hashes.get(3)));
+        // null不提交任务，3次哈希和3次校验都在线程池中执行；关闭后计数才是准确的
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(6, executor.getCompletedTaskCount());
+    }
+
+    // 线程池已满时在调用线程中计算，导入不会失败
+    @Test
+    void testEncodeAllWhenSaturated() {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(credentialService, "executor");
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        List<String> hashes = credentialService.encodeAll(Arrays.asList("a", "b"));
+        release.countDown();
+
+        assertTrue(credentialService.isEncoded(hashes.get(0)));
+        assertTrue(credentialService.isEncoded(hashes.get(1)));
+    }
+}
@@ -0,0 +1,242 @@
+package com.demo.service.impl;
+
+import com.demo.cache.ContentChangedEvent;
+import com.demo.cache.EntityCounter;
+import com.demo.dao.MessageDao;
+import com.demo.entity.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.demo.service.MessageService.STATE_NO_AUDIT;
+import static com.demo.service.MessageService.STATE_PASS;
+import static com.demo.service.MessageService.STATE_REJECT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class MessageServiceImplTest {
+    @InjectMocks
+    MessageServiceImpl messageService;
+
+    @Mock
+    MessageDao messageDao;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    private final EntityCounter entityCounter = new EntityCounter();
+
+    // 模拟数据表：留言ID到状态
+    private final Map<Integer, Integer> states = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(messageService, "entityCounter", entityCounter);
+        ReflectionTestUtils.setField(messageService, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        when(messageDao.findByMessageID(anyInt())).thenAnswer(inv -> find(inv.getArgument(0)));
+        when(messageDao.findAllByMessageIDIn(anyCollection())).thenAnswer(inv -> {
+            List<Message> messages = new ArrayList<>();
+            for (Integer id : inv.<Collection<Integer>>getArgument(0)) {
+                Message message = find(id);
+                if (message != null) {
+                    messages.add(message);
+                }
+            }
+            return messages;
+        });
+        when(messageDao.updateStateIfCurrent(anyInt(), anyInt(), anyInt())).thenAnswer(inv ->
+                update(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)));
+        when(messageDao.updateStatesIfCurrent(anyCollection(), anyInt(), anyInt())).thenAnswer(inv -> {
+            int count = 0;
+            for (Integer id : inv.<Collection<Integer>>getArgument(0)) {
+                count += update(id, inv.getArgument(1), inv.getArgument(2));
+            }
+            return count;
+        });
+    }
+
+    private Message find(int messageID) {
+        Integer state = states.get(messageID);
+        return state == null ? null : new Message(messageID, "user", "content", LocalDateTime.now(), state);
+    }
+
+    private int update(int messageID, int expectedState, int state) {
+        if (!Integer.valueOf(expectedState).equals(states.get(messageID))) {
+            return 0;
+        }
+        states.put(messageID, state);
+        return 1;
+    }
+
+    // 预先加载计数，之后只由service修改
+    private void loadCounters(long wait, long pass, long reject) {
+        entityCounter.get(EntityCounter.message(STATE_NO_AUDIT), () -> wait);
+        entityCounter.get(EntityCounter.message(STATE_PASS), () -> pass);
+        entityCounter.get(EntityCounter.message(STATE_REJECT), () -> reject);
+    }
+
+    private long count(int state) {
+        return entityCounter.get(EntityCounter.message(state), () -> -1);
+    }
+
+    @Test
+    void testConfirmMessage() {
+        states.put(1, STATE_NO_AUDIT);
+        loadCounters(1, 0, 0);
+
+        messageService.confirmMessage(1);
+
+        assertEquals(STATE_PASS, states.get(1));
+        assertEquals(0, count(STATE_NO_AUDIT));
+        assertEquals(1, count(STATE_PASS));
+        verify(eventPublisher).publishEvent(any(ContentChangedEvent.class));
+    }
+
+    // 拒绝的留言不在首页显示，不发布内容变化事件
+    @Test
+    void testRejectMessage() {
+        states.put(1, STATE_NO_AUDIT);
+        loadCounters(1, 0, 0);
+
+        messageService.rejectMessage(1);
+
+        assertEquals(STATE_REJECT, states.get(1));
+        assertEquals(0, count(STATE_NO_AUDIT));
+        assertEquals(1, count(STATE_REJECT));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    // 已被其他管理员审核：条件更新没有修改任何行，计数不变
+    @Test
+    void testConfirmMessageLostRace() {
+        states.put(1, STATE_REJECT);
+        loadCounters(0, 0, 1);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> messageService.confirmMessage(1));
+
+        assertEquals("留言状态已改变", e.getMessage());
+        assertEquals(STATE_REJECT, states.get(1));
+        assertEquals(0, count(STATE_NO_AUDIT));
+        assertEquals(0, count(STATE_PASS));
+        assertEquals(1, count(STATE_REJECT));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    // 只有未审核的留言可以拒绝，已通过的留言保持不变
+    @Test
+    void testRejectPassedMessage() {
+        states.put(1, STATE_PASS);
+        loadCounters(0, 1, 0);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> messageService.rejectMessage(1));
+
+        assertEquals("留言状态已改变", e.getMessage());
+        assertEquals(STATE_PASS, states.get(1));
+        assertEquals(1, count(STATE_PASS));
+        assertEquals(0, count(STATE_REJECT));
+    }
+
+    // 留言已被删除
+    @Test
+    void testConfirmMessageDeleted() {
+        loadCounters(0, 0, 0);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> messageService.confirmMessage(1));
+
+        assertEquals("留言不存在", e.getMessage());
+        assertEquals(0, count(STATE_PASS));
+    }
+
+    // 结果按请求顺序返回，重复ID只处理一次，非未审核和不存在的留言为false
+    @Test
+    void testConfirmMessagesResult() {
+        states.put(1, STATE_NO_AUDIT);
+        states.put(2, STATE_PASS);
+        states.put(3, STATE_NO_AUDIT);
+        states.put(4, STATE_REJECT);
+        loadCounters(2, 1, 1);
+
+        Map<Integer, Boolean> result = messageService.confirmMessages(Arrays.asList(3, 1, 2, 3, 4, 5));
+
+        assertEquals(Arrays.asList(3, 1, 2, 4, 5), new ArrayList<>(result.keySet()));
+        assertEquals(Arrays.asList(true, true, false, false, false), new ArrayList<>(result.values()));
+        assertEquals(STATE_PASS, states.get(1));
+        assertEquals(STATE_PASS, states.get(3));
+        assertEquals(STATE_REJECT, states.get(4));
+        assertEquals(0, count(STATE_NO_AUDIT));
+        assertEquals(3, count(STATE_PASS));
+        assertEquals(1, count(STATE_REJECT));
+        verify(eventPublisher).publishEvent(any(ContentChangedEvent.class));
+    }
+
+    // 没有通过任何留言时首页内容不变
+    @Test
+    void testConfirmMessagesNoneChanged() {
+        states.put(1, STATE_PASS);
+        loadCounters(0, 1, 0);
+
+        Map<Integer, Boolean> result = messageService.confirmMessages(Arrays.asList(1, 2));
+
+        assertFalse(result.get(1));
+        assertFalse(result.get(2));
+        assertEquals(1, count(STATE_PASS));
+        verify(messageDao, never()).updateStatesIfCurrent(anyCollection(), anyInt(), anyInt());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testRejectMessagesResult() {
+        states.put(1, STATE_NO_AUDIT);
+        states.put(2, STATE_PASS);
+        loadCounters(1, 1, 0);
+
+        Map<Integer, Boolean> result = messageService.rejectMessages(Arrays.asList(1, 2));
+
+        assertTrue(result.get(1));
+        assertFalse(result.get(2));
+        assertEquals(STATE_PASS, states.get(2));
+        assertEquals(0, count(STATE_NO_AUDIT));
+        assertEquals(1, count(STATE_PASS));
+        assertEquals(1, count(STATE_REJECT));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    // 超过一块的ID分块锁定和更新，计数按全部成功的条数移动
+    @Test
+    void testConfirmMessagesChunks() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 1200; i++) {
+            states.put(i, STATE_NO_AUDIT);
+            ids.add(i);
+        }
+        loadCounters(1200, 0, 0);
+
+        Map<Integer, Boolean> result = messageService.confirmMessages(ids);
+
+        assertEquals(1200, result.size());
+        assertFalse(result.containsValue(false));
+        verify(messageDao, times(3)).findAllByMessageIDIn(anyCollection());
+        verify(messageDao, times(3)).updateStatesIfCurrent(anyCollection(), eq(STATE_NO_AUDIT), eq(STATE_PASS));
+        assertEquals(0, count(STATE_NO_AUDIT));
+        assertEquals(1200, count(STATE_PASS));
+    }
+}
@@ -0,0 +1,111 @@
+package com.demo.service.impl;
+
+import com.demo.dao.MessageDao;
+import com.demo.dao.UserDao;
+import com.demo.entity.Message;
+import com.demo.entity.User;
+import com.demo.entity.vo.MessageVo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.demo.service.MessageService.STATE_PASS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class MessageVoServiceImplTest {
+    @InjectMocks
+    MessageVoServiceImpl messageVoService;
+
+    @Mock
+    MessageDao messageDao;
+
+    @Mock
+    UserDao userDao;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    private List<Message> messages(int n) {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 1; i <= n; i++) {
+            messages.add(new Message(i, "user" + (i % 3), "content" + i, LocalDateTime.now(), STATE_PASS));
+        }
+        return messages;
+    }
+
+    private List<User> users() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(new User(i + 1, "user" + i, "name" + i, "pwd", "e@mail", "123", 0, "pic" + i));
+        }
+        return users;
+    }
+
+    // 每页的查询次数不随留言数量增长
+    @Test
+    void testReturnVoStatementCountConstant() {
+        for (int size : Arrays.asList(1, 5, 10, 50)) {
+            reset(messageDao, userDao);
+            when(userDao.findAllByUserIDIn(anyCollection())).thenReturn(users());
+
+            List<MessageVo> result = messageVoService.returnVo(messages(size));
+
+            assertEquals(size, result.size());
+            verify(userDao, times(1)).findAllByUserIDIn(anyCollection());
+            verify(userDao, never()).findByUserID(anyString());
+            verify(messageDao, never()).findByMessageID(anyInt());
+        }
+    }
+
+    // 组装结果与逐条查询一致
+    @Test
+    void testReturnVoFields() {
+        when(userDao.findAllByUserIDIn(anyCollection())).thenReturn(users());
+        List<Message> messages = messages(4);
+
+        List<MessageVo> result = messageVoService.returnVo(messages);
+
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            MessageVo vo = result.get(i);
+            assertEquals(message.getMessageID(), vo.getMessageID());
+            assertEquals(message.getUserID(), vo.getUserID());
+            assertEquals(message.getContent(), vo.getContent());
+            assertEquals("name" + (message.getMessageID() % 3), vo.getUserName());
+            assertEquals("pic" + (message.getMessageID() % 3), vo.getPicture());
+            assertEquals(STATE_PASS, vo.getState());
+        }
+    }
+
+    // 空列表不查询数据库
+    @Test
+    void testReturnVoEmpty() {
+        List<MessageVo> result = messageVoService.returnVo(new ArrayList<>());
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(userDao, messageDao);
+    }
+
+    // 作者已被删除时不抛异常
+    @Test
+    void testReturnVoMissingUser() {
+        when(userDao.findAllByUserIDIn(anyCollection())).thenReturn(new ArrayList<>());
+        List<MessageVo> result = messageVoService.returnVo(messages(1));
+        assertEquals(1, result.size());
+        assertNull(result.get(0).getUserName());
+    }
+}
@@ -0,0 +1,590 @@
+package com.demo.service.impl;
+
+import com.demo.cache.EntityCounter;
+import com.demo.cache.VenueCache;
+import com.demo.cache.VenueAvailabilityIndex;
+import com.demo.dao.OrderArchiveDao;
+import com.demo.dao.OrderDao;
+import com.demo.dao.VenueDao;
+import com.demo.entity.ArchivedOrder;
+import com.demo.entity.Order;
+import com.demo.entity.Venue;
+import com.demo.entity.vo.KeysetPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.demo.service.OrderService.STATE_FINISH;
+import static com.demo.service.OrderService.STATE_NO_AUDIT;
+import static com.demo.service.OrderService.STATE_REJECT;
+import static com.demo.service.OrderService.STATE_WAIT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class OrderServiceImplTest {
+    private static final int VENUES = 8;
+    private static final int HOURS = 12;
+    private static final int THREADS = 32;
+
+    @InjectMocks
+    OrderServiceImpl orderService;
+
+    @Mock
+    OrderDao orderDao;
+
+    @Mock
+    VenueDao venueDao;
+
+    @Mock
+    OrderArchiveDao orderArchiveDao;
+
+    private final List<Order> orders = new CopyOnWriteArrayList<>();
+    private final Map<String, Venue> venues = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final LocalDate day = LocalDate.of(2024, 5, 1);
+    private final OrderExpiryScheduler expiryScheduler = new OrderExpiryScheduler();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        VenueAvailabilityIndex index = new VenueAvailabilityIndex();
+        ReflectionTestUtils.setField(index, "orderDao", orderDao);
+        ReflectionTestUtils.setField(orderService, "availabilityIndex", index);
+        ReflectionTestUtils.setField(orderService, "bookingCoordinator", new BookingCoordinator());
+        ReflectionTestUtils.setField(orderService, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(orderService, "entityCounter", new EntityCounter());
+        ReflectionTestUtils.setField(orderService, "venueCache", new VenueCache());
+        ReflectionTestUtils.setField(orderService, "expiryScheduler", expiryScheduler);
+
+        for (int i = 1; i <= VENUES; i++) {
+            venues.put("venue" + i, new Venue(i, "venue" + i, "", 100, "", "", "08:00", "20:00"));
+        }
+        when(venueDao.findByVenueName(anyString())).thenAnswer(inv -> venues.get(inv.<String>getArgument(0)));
+        // 模拟数据库延迟，放大读后写之间的竞争窗口
+        when(orderDao.save(any(Order.class))).thenAnswer(inv -> {
+            Order order = inv.getArgument(0);
+            Thread.sleep(1);
+            if (order.getOrderID() == 0) {
+                order.setOrderID(ids.incrementAndGet());
+                orders.add(order);
+            }
+            return order;
+        });
+        when(orderDao.findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any())).thenAnswer(inv -> {
+            int venueID = inv.getArgument(0);
+            LocalDateTime from = inv.getArgument(1);
+            LocalDateTime to = inv.getArgument(2);
+            return orders.stream()
+                    .filter(o -> o.getVenueID() == venueID && !o.getStartTime().isBefore(from) && !o.getStartTime().isAfter(to))
+                    .collect(Collectors.toList());
+        });
+        when(orderDao.findByOrderID(anyInt())).thenAnswer(inv -> find(inv.getArgument(0)));
+        when(orderDao.findAllByOrderIDIn(anyCollection())).thenAnswer(inv -> {
+            Collection<Integer> orderIDs = inv.getArgument(0);
+            return orders.stream().filter(o -> orderIDs.contains(o.getOrderID())).collect(Collectors.toList());
+        });
+        // 条件更新在数据库中是原子的
+        when(orderDao.updateStateIfCurrent(anyInt(), anyInt(), anyInt())).thenAnswer(inv -> {
+            Order order = find(inv.getArgument(0));
+            if (order == null) {
+                return 0;
+            }
+            synchronized (order) {
+                if (order.getState() != inv.<Integer>getArgument(1)) {
+                    return 0;
+                }
+                order.setState(inv.getArgument(2));
+                return 1;
+            }
+        });
+        when(orderDao.updateIfState(anyInt(), anyInt(), anyInt(), anyInt(), any(), anyInt(), any(), anyString(), anyInt())).thenAnswer(inv -> {
+            Order order = find(inv.getArgument(0));
+            if (order == null) {
+                return 0;
+            }
+            synchronized (order) {
+                if (order.getState() != inv.<Integer>getArgument(1)) {
+                    return 0;
+                }
+                order.setState(inv.getArgument(2));
+                order.setVenueID(inv.getArgument(3));
+                order.setStartTime(inv.getArgument(4));
+                order.setHours(inv.getArgument(5));
+                order.setOrderTime(inv.getArgument(6));
+                order.setUserID(inv.getArgument(7));
+                order.setTotal(inv.getArgument(8));
+                return 1;
+            }
+        });
+    }
+
+    private Order find(int orderID) {
+        return orders.stream().filter(o -> o.getOrderID() == orderID).findFirst().orElse(null);
+    }
+
+    // 高并发下同一场馆同一时段只能被预订一次
+    @Test
+    void testNoDoubleBookingUnderContention() throws Exception {
+        List<Runnable> attempts = new ArrayList<>();
+        for (int v = 1; v <= VENUES; v++) {
+            for (int h = 8; h < 8 + HOURS; h++) {
+                String venueName = "venue" + v;
+                LocalDateTime startTime = day.atTime(h, 0);
+                for (int t = 0; t < THREADS; t++) {
+                    String userID = "user" + t;
+                    attempts.add(() -> orderService.submit(venueName, startTime, 1, userID));
+                }
+            }
+        }
+        Collections.shuffle(attempts);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        for (Runnable attempt : attempts) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    attempt.run();
+                    success.incrementAndGet();
+                } catch (RuntimeException e) {
+                    assertEquals("该时段已被预订", e.getMessage());
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertEquals(VENUES * HOURS, success.get());
+        assertEquals(attempts.size() - VENUES * HOURS, rejected.get());
+        Map<String, Long> slots = orders.stream()
+                .collect(Collectors.groupingBy(o -> o.getVenueID() + "@" + o.getStartTime(), Collectors.counting()));
+        assertEquals(VENUES * HOURS, slots.size());
+        slots.values().forEach(count -> assertEquals(1L, count.longValue()));
+    }
+
+    // 修改订单到已被占用的时段
+    @Test
+    void testUpdateOrderConflict() {
+        orderService.submit("venue1", day.atTime(9, 0), 2, "user1");
+        orderService.submit("venue1", day.atTime(12, 0), 1, "user2");
+        int orderID = orders.get(1).getOrderID();
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> orderService.updateOrder(orderID, "venue1", day.atTime(10, 0), 1, "user2"));
+        assertEquals("该时段已被预订", e.getMessage());
+
+        // 与自身原时段重叠是允许的
+        orderService.updateOrder(orderID, "venue1", day.atTime(12, 0), 2, "user2");
+        assertEquals(2, orders.get(1).getHours());
+    }
+
+    // 拒绝订单后时段可以被重新预订
+    @Test
+    void testRejectReleasesSlot() {
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user1");
+        Order order = orders.get(0);
+        when(orderDao.updateStateIfCurrent(anyInt(), anyInt(), anyInt())).thenAnswer(inv -> {
+            order.setState(inv.getArgument(2));
+            return 1;
+        });
+
+        orderService.rejectOrder(order.getOrderID());
+        assertEquals(STATE_REJECT, order.getState());
+
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user2");
+        assertEquals(STATE_NO_AUDIT, orders.get(1).getState());
+    }
+
+    // 已审核的订单也可以拒绝
+    @Test
+    void testRejectWaitOrder() {
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user1");
+        orderService.confirmOrder(orders.get(0).getOrderID());
+
+        orderService.rejectOrder(orders.get(0).getOrderID());
+
+        assertEquals(STATE_REJECT, orders.get(0).getState());
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user2");
+    }
+
+    // 拒绝时状态已被修改，时段仍然被占用
+    @Test
+    void testRejectOrderLostRaceKeepsSlot() {
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user1");
+        assertEquals(1 << 9, orderService.findOccupiedHours(1, day));
+        when(orderDao.updateStateIfCurrent(anyInt(), anyInt(), anyInt())).thenReturn(0);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> orderService.rejectOrder(orders.get(0).getOrderID()));
+        assertEquals("订单状态已改变", e.getMessage());
+
+        e = assertThrows(RuntimeException.class, () -> orderService.submit("venue1", day.atTime(9, 0), 1, "user2"));
+        assertEquals("该时段已被预订", e.getMessage());
+        verify(orderDao, times(1)).findByVenueIDAndStartTimeIsBetween(anyInt(), any(), any());
+    }
+
+    // 状态已被其他管理员修改
+    @Test
+    void testConfirmOrderLostRace() {
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user1");
+        when(orderDao.updateStateIfCurrent(anyInt(), anyInt(), anyInt())).thenReturn(0);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> orderService.confirmOrder(orders.get(0).getOrderID()));
+        assertEquals("订单状态已改变", e.getMessage());
+    }
+
+    // 订单不存在
+    @Test
+    void testConfirmOrderNotExist() {
+        when(orderDao.updateStateIfCurrent(anyInt(), anyInt(), anyInt())).thenReturn(0);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> orderService.confirmOrder(100));
+        assertEquals("订单不存在", e.getMessage());
+    }
+
+    // 状态修改只需一条update，读取订单只用来确定要锁定的场馆
+    @Test
+    void testConfirmOrderSingleStatement() {
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user1");
+        int orderID = orders.get(0).getOrderID();
+
+        orderService.confirmOrder(orderID);
+
+        verify(orderDao).updateStateIfCurrent(orderID, STATE_NO_AUDIT, STATE_WAIT);
+        verify(orderDao, times(1)).save(any(Order.class));
+        assertEquals(STATE_WAIT, orders.get(0).getState());
+    }
+
+    // 修改订单和审核通过并发执行，订单状态和各状态计数始终一致
+    @Test
+    void testUpdateOrderRacesConfirm() throws Exception {
+        for (int h = 8; h < 8 + HOURS; h++) {
+            orderService.submit("venue1", day.atTime(h, 0), 1, "user1");
+        }
+        EntityCounter counter = (EntityCounter) ReflectionTestUtils.getField(orderService, "entityCounter");
+        counter.get(EntityCounter.order(STATE_NO_AUDIT), () -> HOURS);
+        counter.get(EntityCounter.order(STATE_WAIT), () -> 0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Runnable> attempts = new ArrayList<>();
+        for (Order order : orders) {
+            int orderID = order.getOrderID();
+            LocalDateTime startTime = order.getStartTime();
+            for (int i = 0; i < 20; i++) {
+                attempts.add(() -> orderService.updateOrder(orderID, "venue2", startTime, 1, "user1"));
+                attempts.add(() -> orderService.updateOrder(orderID, "venue1", startTime, 1, "user1"));
+                attempts.add(() -> orderService.confirmOrder(orderID));
+            }
+        }
+        Collections.shuffle(attempts);
+        for (Runnable attempt : attempts) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    attempt.run();
+                } catch (RuntimeException e) {
+                    assertEquals("订单状态已改变", e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+
+        long noAudit = orders.stream().filter(o -> o.getState() == STATE_NO_AUDIT).count();
+        assertEquals(noAudit, counter.get(EntityCounter.order(STATE_NO_AUDIT), () -> -1));
+        assertEquals(HOURS - noAudit, counter.get(EntityCounter.order(STATE_WAIT), () -> -1));
+        verify(orderDao, times(HOURS)).save(any(Order.class));
+    }
+
+    // 批量通过只修改未审核的订单，每块一条update
+    @Test
+    void testConfirmOrdersBatch() {
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user1");
+        orderService.submit("venue1", day.atTime(10, 0), 1, "user1");
+        orders.get(1).setState(STATE_WAIT);
+        int pending = orders.get(0).getOrderID();
+        int approved = orders.get(1).getOrderID();
+        when(orderDao.findAllByOrderIDIn(anyCollection())).thenAnswer(inv -> {
+            Collection<Integer> ids = inv.getArgument(0);
+            return orders.stream().filter(o -> ids.contains(o.getOrderID())).collect(Collectors.toList());
+        });
+
+        Map<Integer, Boolean> result = orderService.confirmOrders(Arrays.asList(pending, approved, 100, pending));
+
+        assertEquals(3, result.size());
+        assertTrue(result.get(pending));
+        assertFalse(result.get(approved));
+        assertFalse(result.get(100));
+        verify(orderDao, times(1)).updateStatesIfCurrent(Collections.singletonList(pending), STATE_NO_AUDIT, STATE_WAIT);
+        verify(orderDao, never()).updateStateIfCurrent(anyInt(), anyInt(), anyInt());
+    }
+
+    // 游标分页：多取一条判断是否有下一页，游标携带最后一条的排序键
+    @Test
+    void testFindAuditOrderKeyset() {
+        LocalDateTime time = day.atTime(8, 0);
+        List<Order> page = Arrays.asList(
+                new Order(9, "user1", 1, STATE_FINISH, time, time, 1, 100),
+                new Order(7, "user1", 1, STATE_FINISH, time, time, 1, 100),
+                new Order(5, "user1", 1, STATE_WAIT, time, time, 1, 100));
+        when(orderDao.findAudit(anyCollection(), any())).thenReturn(page);
+        when(orderDao.findAuditAfter(anyCollection(), anyInt(), any(), anyInt(), any())).thenReturn(page.subList(2, 3));
+
+        KeysetPage<Order> first = orderService.findAuditOrder(null, 2);
+        assertEquals(2, first.getContent().size());
+        assertNotNull(first.getNext());
+
+        KeysetPage<Order> second = orderService.findAuditOrder(first.getNext(), 2);
+        assertEquals(1, second.getContent().size());
+        assertNull(second.getNext());
+        verify(orderDao).findAuditAfter(anyCollection(), eq(STATE_FINISH), eq(time), eq(7), any());
+    }
+
+    // 未审核订单数只查询一次，之后随提交和审核增量维护
+    @Test
+    void testCountNoAuditOrderMaintained() {
+        when(orderDao.countByState(STATE_NO_AUDIT)).thenReturn(5L);
+        when(orderDao.updateStateIfCurrent(anyInt(), anyInt(), anyInt())).thenReturn(1);
+        assertEquals(5, orderService.countNoAuditOrder());
+
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user1");
+        orderService.submit("venue1", day.atTime(10, 0), 1, "user1");
+        orderService.confirmOrder(orders.get(0).getOrderID());
+
+        assertEquals(6, orderService.countNoAuditOrder());
+        verify(orderDao, times(1)).countByState(STATE_NO_AUDIT);
+    }
+
+    // 到期处理：开始时未审核的拒绝，结束后已审核的完成，未到期的放回队列
+    @Test
+    void testExpireOrders() {
+        orderService.submit("venue1", day.atTime(9, 0), 2, "user1");
+        orderService.submit("venue2", day.atTime(9, 0), 2, "user1");
+        orderService.submit("venue3", day.atTime(9, 0), 2, "user1");
+        orders.get(1).setState(STATE_WAIT);
+        orders.get(2).setState(STATE_WAIT);
+        when(orderDao.findAllByOrderIDIn(anyCollection())).thenAnswer(inv -> {
+            Collection<Integer> ids = inv.getArgument(0);
+            return orders.stream().filter(o -> ids.contains(o.getOrderID())).collect(Collectors.toList());
+        });
+        when(orderDao.updateStatesIfCurrent(anyCollection(), anyInt(), anyInt())).thenAnswer(inv -> {
+            Collection<Integer> ids = inv.getArgument(0);
+            orders.stream().filter(o -> ids.contains(o.getOrderID()) && o.getState() == inv.<Integer>getArgument(1))
+                    .forEach(o -> o.setState(inv.getArgument(2)));
+            return ids.size();
+        });
+
+        // 9点：未审核的订单被拒绝，已审核的订单还没结束
+        assertEquals(1, orderService.expireOrders(day.atTime(9, 0)));
+        assertEquals(STATE_REJECT, orders.get(0).getState());
+        assertEquals(STATE_WAIT, orders.get(1).getState());
+        assertEquals(2, expiryScheduler.size());
+        verify(orderDao, times(1)).updateStatesIfCurrent(anyCollection(), eq(STATE_NO_AUDIT), eq(STATE_REJECT));
+        verify(orderDao, never()).updateStateIfCurrent(anyInt(), anyInt(), anyInt());
+
+        // 11点：两个已审核订单在一条update中完成
+        assertEquals(2, orderService.expireOrders(day.atTime(11, 0)));
+        assertEquals(STATE_FINISH, orders.get(1).getState());
+        assertEquals(STATE_FINISH, orders.get(2).getState());
+        verify(orderDao, times(1)).updateStatesIfCurrent(anyCollection(), eq(STATE_WAIT), eq(STATE_FINISH));
+        assertEquals(0, expiryScheduler.size());
+    }
+
+    // 修改到更晚时段的订单不会按原时间被拒绝
+    @Test
+    void testExpireRescheduledOrder() {
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user1");
+        int orderID = orders.get(0).getOrderID();
+        orderService.updateOrder(orderID, "venue1", day.atTime(15, 0), 1, "user1");
+        when(orderDao.findAllByOrderIDIn(anyCollection())).thenReturn(new ArrayList<>(orders));
+
+        assertEquals(0, orderService.expireOrders(day.atTime(10, 0)));
+        assertEquals(STATE_NO_AUDIT, orders.get(0).getState());
+        verify(orderDao, never()).updateStatesIfCurrent(anyCollection(), anyInt(), anyInt());
+    }
+
+    // 已完成、失效的订单不能再修改
+    @Test
+    void testUpdateFinalOrder() {
+        orderService.submit("venue1", day.atTime(9, 0), 1, "user1");
+        orders.get(0).setState(STATE_FINISH);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> orderService.updateOrder(orders.get(0).getOrderID(), "venue1", day.atTime(10, 0), 1, "user1"));
+        assertEquals("订单不能从已完成变为未审核", e.getMessage());
+    }
+
+    private ArchivedOrder archived(int orderID, LocalDateTime orderTime) {
+        return new ArchivedOrder(orderID, "user1", 1, STATE_FINISH, orderTime, orderTime, 1, 100);
+    }
+
+    private List<Integer> ids(List<Order> content) {
+        return content.stream().map(Order::getOrderID).collect(Collectors.toList());
+    }
+
+    // 按pageable取前offset+size条，和数据库的limit一样
+    private <T> List<T> top(List<T> rows, Pageable pageable) {
+        return rows.subList(0, Math.min(rows.size(), pageable.getPageSize()));
+    }
+
+    // 两张表按下单时间合并分页，总数包含归档订单
+    @Test
+    void testFindUserOrderPagesIntoArchive() {
+        LocalDateTime time = day.atTime(8, 0);
+        Order recent = new Order(20, "user1", 1, STATE_FINISH, time, time, 1, 100);
+        List<ArchivedOrder> archive = Arrays.asList(archived(9, time.minusDays(100)), archived(8, time.minusDays(101)),
+                archived(7, time.minusDays(102)), archived(6, time.minusDays(103)), archived(5, time.minusDays(104)));
+        when(orderArchiveDao.existsByUserID("user1")).thenReturn(true);
+        when(orderDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(eq("user1"), any()))
+                .thenAnswer(inv -> top(Collections.singletonList(recent), inv.getArgument(1)));
+        when(orderArchiveDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(eq("user1"), any()))
+                .thenAnswer(inv -> top(archive, inv.getArgument(1)));
+        when(orderDao.countByUserID("user1")).thenReturn(1L);
+        when(orderArchiveDao.countByUserID("user1")).thenReturn((long) archive.size());
+        Sort sort = Sort.by("orderTime").descending();
+
+        Page<Order> first = orderService.findUserOrder("user1", PageRequest.of(0, 2, sort));
+        Page<Order> second = orderService.findUserOrder("user1", PageRequest.of(1, 2, sort));
+        Page<Order> third = orderService.findUserOrder("user1", PageRequest.of(2, 2, sort));
+
+        assertEquals(3, first.getTotalPages());
+        assertEquals(Arrays.asList(20, 9), ids(first.getContent()));
+        assertEquals(Arrays.asList(8, 7), ids(second.getContent()));
+        assertEquals(Arrays.asList(6, 5), ids(third.getContent()));
+    }
+
+    // 未审核的订单不归档，可能比归档的订单早，两种分页都要按下单时间排在归档订单之后
+    @Test
+    void testFindUserOrderOldPendingBetweenArchived() {
+        LocalDateTime time = day.atTime(8, 0);
+        Order pending = new Order(3, "user1", 1, STATE_NO_AUDIT, time.minusDays(200), time, 1, 100);
+        List<ArchivedOrder> archive = Arrays.asList(archived(9, time.minusDays(100)), archived(8, time.minusDays(150)),
+                archived(2, time.minusDays(300)));
+        when(orderArchiveDao.existsByUserID("user1")).thenReturn(true);
+        when(orderDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(eq("user1"), any()))
+                .thenAnswer(inv -> top(Collections.singletonList(pending), inv.getArgument(1)));
+        when(orderArchiveDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(eq("user1"), any()))
+                .thenAnswer(inv -> top(archive, inv.getArgument(1)));
+        when(orderDao.findAllByUserIDAfter(eq("user1"), any(), anyInt(), any())).thenAnswer(inv -> {
+            LocalDateTime after = inv.getArgument(1);
+            return pending.getOrderTime().isBefore(after) ? top(Collections.singletonList(pending), inv.getArgument(3))
+                    : Collections.emptyList();
+        });
+        when(orderArchiveDao.findAllByUserIDAfter(eq("user1"), any(), anyInt(), any())).thenAnswer(inv -> {
+            LocalDateTime after = inv.getArgument(1);
+            return top(archive.stream().filter(o -> o.getOrderTime().isBefore(after)).collect(Collectors.toList()),
+                    inv.getArgument(3));
+        });
+        when(orderDao.countByUserID("user1")).thenReturn(1L);
+        when(orderArchiveDao.countByUserID("user1")).thenReturn(3L);
+
+        Page<Order> first = orderService.findUserOrder("user1", PageRequest.of(0, 2));
+        Page<Order> second = orderService.findUserOrder("user1", PageRequest.of(1, 2));
+        assertEquals(4, first.getTotalElements());
+        assertEquals(Arrays.asList(9, 8), ids(first.getContent()));
+        assertEquals(Arrays.asList(3, 2), ids(second.getContent()));
+
+        KeysetPage<Order> page = orderService.findUserOrder("user1", null, 2);
+        assertEquals(Arrays.asList(9, 8), ids(page.getContent()));
+        KeysetPage<Order> next = orderService.findUserOrder("user1", page.getNext(), 2);
+        assertEquals(Arrays.asList(3, 2), ids(next.getContent()));
+        assertNull(next.getNext());
+    }
+
+    // 游标分页：两张表用同一个游标各取size+1条
+    @Test
+    void testFindUserOrderKeysetIntoArchive() {
+        LocalDateTime time = day.atTime(8, 0);
+        Order recent = new Order(20, "user1", 1, STATE_FINISH, time, time, 1, 100);
+        when(orderArchiveDao.existsByUserID("user1")).thenReturn(true);
+        when(orderDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(eq("user1"), any())).thenReturn(Collections.singletonList(recent));
+        when(orderArchiveDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(eq("user1"), any()))
+                .thenReturn(Arrays.asList(archived(9, time.minusDays(100)), archived(8, time.minusDays(101))));
+
+        KeysetPage<Order> page = orderService.findUserOrder("user1", null, 2);
+
+        assertEquals(Arrays.asList(20, 9), ids(page.getContent()));
+        assertNotNull(page.getNext());
+    }
+
+    // 没有归档订单的用户不查询归档表
+    @Test
+    void testFindUserOrderWithoutArchive() {
+        LocalDateTime time = day.atTime(8, 0);
+        when(orderArchiveDao.findAllUserIDs()).thenReturn(Collections.singletonList("user2"));
+        orderService.loadArchivedUsers();
+        when(orderDao.findAllByUserIDOrderByOrderTimeDescOrderIDDesc(eq("user1"), any())).thenReturn(Arrays.asList(
+                new Order(3, "user1", 1, STATE_WAIT, time, time, 1, 100),
+                new Order(2, "user1", 1, STATE_WAIT, time, time, 1, 100),
+                new Order(1, "user1", 1, STATE_WAIT, time, time, 1, 100)));
+        when(orderDao.findAllByUserID(eq("user1"), any())).thenReturn(new PageImpl<>(Collections.emptyList()));
+
+        assertEquals(2, orderService.findUserOrder("user1", null, 2).getContent().size());
+        orderService.findUserOrder("user1", PageRequest.of(0, 2));
+        verify(orderArchiveDao).findAllUserIDs();
+        verifyNoMoreInteractions(orderArchiveDao);
+    }
+
+    // 分批归档，每批复制和删除各一条语句，并修改各状态的计数
+    @Test
+    void testArchiveOrdersInBatches() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= 600; i++) {
+            rows.add(new Object[]{i, i % 2 == 0 ? STATE_FINISH : STATE_REJECT, "user" + i % 10});
+        }
+        when(orderDao.findArchivable(anyCollection(), any(), any()))
+                .thenReturn(rows.subList(0, 500))
+                .thenReturn(rows.subList(500, 600));
+        EntityCounter counter = (EntityCounter) ReflectionTestUtils.getField(orderService, "entityCounter");
+        counter.get(EntityCounter.order(STATE_FINISH), () -> 1000);
+
+        assertEquals(600, orderService.archiveOrders(day.atStartOfDay()));
+
+        verify(orderDao, times(2)).findArchivable(anyCollection(), any(), any());
+        verify(orderArchiveDao, times(2)).copyFromOrders(anyCollection());
+        verify(orderDao, times(2)).deleteAllByOrderIDs(anyCollection());
+        assertEquals(700, counter.get(EntityCounter.order(STATE_FINISH), () -> 0));
+    }
+}
@@ -0,0 +1,89 @@
+package com.demo.service.impl;
+
+import com.demo.dao.OrderDao;
+import com.demo.dao.VenueDao;
+import com.demo.entity.Order;
+import com.demo.entity.Venue;
+import com.demo.entity.vo.OrderVo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.demo.metrics.QueryCounts.assertStatementsAtMost;
+import static com.demo.metrics.QueryCounts.executes;
+import static com.demo.service.OrderService.STATE_WAIT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class OrderVoServiceImplTest {
+    private OrderVoServiceImpl orderVoService;
+    private OrderDao orderDao;
+    private VenueDao venueDao;
+
+    @BeforeEach
+    public void setUp() {
+        // DAO的每次调用都记为一条语句，包括没有stub的方法
+        orderDao = mock(OrderDao.class, executes(RETURNS_DEFAULTS));
+        venueDao = mock(VenueDao.class, executes(RETURNS_DEFAULTS));
+        orderVoService = new OrderVoServiceImpl();
+        ReflectionTestUtils.setField(orderVoService, "orderDao", orderDao);
+        ReflectionTestUtils.setField(orderVoService, "venueDao", venueDao);
+        doAnswer(executes(inv -> {
+            Collection<Integer> ids = inv.getArgument(0);
+            return ids.stream().map(id -> new Venue(id, "venue" + id, "", 100, "", "", "08:00", "20:00"))
+                    .collect(Collectors.toList());
+        })).when(venueDao).findAllById(anyCollection());
+    }
+
+    private List<Order> orders(int n) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 1; i <= n; i++) {
+            orders.add(new Order(i, "user", i % 4 + 1, STATE_WAIT, LocalDateTime.now(), LocalDateTime.now(), 1, 100));
+        }
+        return orders;
+    }
+
+    // 每页的语句数不随订单数量增长，出现N+1查询时失败
+    @Test
+    void testReturnVoStatementBudget() {
+        for (int size : Arrays.asList(1, 10, 100)) {
+            List<Order> orders = orders(size);
+            List<OrderVo> result = new ArrayList<>();
+
+            assertStatementsAtMost(1, () -> result.addAll(orderVoService.returnVo(orders)));
+
+            assertEquals(size, result.size());
+            assertEquals("venue" + orders.get(0).getVenueID(), result.get(0).getVenueName());
+        }
+    }
+
+    // 直接使用传入的订单，同一页的场馆只查询一次，不按订单逐条查询
+    @Test
+    void testReturnVoLoadsVenuesOnce() {
+        List<Order> orders = orders(20);
+
+        List<OrderVo> result = orderVoService.returnVo(orders);
+
+        assertEquals(20, result.size());
+        assertEquals(orders.get(5).getOrderID(), result.get(5).getOrderID());
+        assertEquals("venue" + orders.get(5).getVenueID(), result.get(5).getVenueName());
+        verify(venueDao, times(1)).findAllById(anyCollection());
+        verify(venueDao, never()).findByVenueID(anyInt());
+        verify(orderDao, never()).findByOrderID(anyInt());
+    }
+
+    // 空列表不执行语句
+    @Test
+    void testReturnVoEmpty() {
+        assertStatementsAtMost(0, () -> assertTrue(orderVoService.returnVo(new ArrayList<>()).isEmpty()));
+    }
+}
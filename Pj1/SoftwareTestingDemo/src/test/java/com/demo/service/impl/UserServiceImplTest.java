@@ -0,0 +1,178 @@
+package com.demo.service.impl;
+
+import com.demo.cache.EntityCounter;
+import com.demo.dao.UserDao;
+import com.demo.entity.User;
+import com.demo.service.CredentialService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class UserServiceImplTest {
+    @InjectMocks
+    UserServiceImpl userService;
+
+    @Mock
+    UserDao userDao;
+
+    @Mock
+    CredentialService credentialService;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    private final EntityCounter entityCounter = new EntityCounter();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(userService, "entityCounter", entityCounter);
+    }
+
+    private User user(String userID) {
+        return new User(0, userID, "name", "pwd", "", "", 0, "");
+    }
+
+    // 返回生成的id，不再加载全部用户
+    @Test
+    void testCreateReturnsID() {
+        when(userDao.save(any(User.class))).thenAnswer(inv -> {
+            User user = inv.getArgument(0);
+            user.setId(42);
+            return user;
+        });
+
+        assertEquals(42, userService.create(user("u1")));
+        verify(userDao, never()).findAll();
+    }
+
+    // 跳过已存在和重复的userID，每500条一次批量插入
+    @Test
+    void testImportUsers() {
+        when(userDao.countByIsadmin(0)).thenReturn(10L);
+        userService.countUser();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            users.add(user("u" + i));
+        }
+        users.add(user("u0"));
+        when(userDao.findExistingUserIDs(anyCollection())).thenAnswer(inv -> {
+            Collection<String> userIDs = inv.getArgument(0);
+            return userIDs.stream().filter(id -> id.equals("u1") || id.equals("u700")).collect(Collectors.toList());
+        });
+        when(userDao.batchInsert(anyList())).thenAnswer(inv -> inv.<List<User>>getArgument(0).size());
+        when(credentialService.encodeAll(anyList())).thenAnswer(inv -> inv.<List<String>>getArgument(0).stream()
+                .map(password -> "{bcrypt}" + password).collect(Collectors.toList()));
+
+        assertEquals(1198, userService.importUsers(users));
+
+        // 每块一次批量哈希，在CredentialService的线程池中计算
+        verify(credentialService, times(3)).encodeAll(anyList());
+        verify(credentialService, never()).encode(any());
+        assertEquals("{bcrypt}pwd", users.get(0).getPassword());
+        verify(userDao, times(3)).batchInsert(anyList());
+        verify(userDao, never()).save(any(User.class));
+        assertEquals(1208, userService.countUser());
+    }
+
+    // 加载userID后，不存在的userID不查询数据库
+    @Test
+    void testCountUserID() {
+        when(userDao.findAllUserIDs()).thenReturn(Arrays.asList("u1", "u2"));
+        when(userDao.countByUserID("u1")).thenReturn(1);
+        when(userDao.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+        userService.loadUserIDs();
+
+        assertEquals(0, userService.countUserID("u3"));
+        assertEquals(1, userService.countUserID("u1"));
+        verify(userDao, never()).countByUserID("u3");
+
+        userService.create(user("u3"));
+        when(userDao.countByUserID("u3")).thenReturn(1);
+        assertEquals(1, userService.countUserID("u3"));
+    }
+
+    // 按userID查询后校验，明文密码在第一次登录成功时换成哈希
+    @Test
+    void testCheckLoginMigratesLegacyPassword() {
+        User user = user("u1");
+        when(userDao.findByUserID("u1")).thenReturn(user);
+        when(credentialService.matches("pwd", "pwd")).thenReturn(true);
+        when(credentialService.needsUpgrade("pwd")).thenReturn(true);
+        when(credentialService.encode("pwd")).thenReturn("{bcrypt}hash");
+
+        assertSame(user, userService.checkLogin("u1", "pwd"));
+        assertEquals("{bcrypt}hash", user.getPassword());
+        verify(userDao).save(user);
+
+        when(credentialService.matches("pwd", "{bcrypt}hash")).thenReturn(true);
+        when(credentialService.needsUpgrade("{bcrypt}hash")).thenReturn(false);
+        userService.checkLogin("u1", "pwd");
+        verify(userDao, times(1)).save(user);
+    }
+
+    // 密码错误或用户不存在
+    @Test
+    void testCheckLoginFail() {
+        when(userDao.findByUserID("u1")).thenReturn(user("u1"));
+
+        assertNull(userService.checkLogin("u1", "wrong"));
+        assertNull(userService.checkLogin("u2", "pwd"));
+        verify(credentialService, never()).matches(any(), eq("u2"));
+        verify(userDao, never()).save(any(User.class));
+    }
+
+    // 全部已存在时不插入
+    @Test
+    void testImportUsersAllExisting() {
+        when(userDao.findExistingUserIDs(anyCollection())).thenReturn(Arrays.asList("u1", "u2"));
+
+        assertEquals(0, userService.importUsers(Arrays.asList(user("u1"), user("u2"))));
+        verify(userDao, never()).batchInsert(anyList());
+    }
+
+    // 以{bcrypt}开头的输入也当作明文哈希，不能直接保存为哈希
+    @Test
+    void testCreateHashesPrefixedInput() {
+        when(userDao.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(credentialService.encode("{bcrypt}$2a$10$forged")).thenReturn("{bcrypt}hash");
+        User user = user("u1");
+        user.setPassword("{bcrypt}$2a$10$forged");
+
+        userService.create(user);
+
+        assertEquals("{bcrypt}hash", user.getPassword());
+    }
+
+    // 修改资料时密码未变(回填的哈希)不重新哈希，新密码即使带前缀也要哈希
+    @Test
+    void testUpdateUserHashesOnlyChangedPassword() {
+        User user = new User(7, "u1", "name", "{bcrypt}stored", "", "", 0, "");
+        when(userDao.findPasswordById(7)).thenReturn("{bcrypt}stored");
+
+        userService.updateUser(user);
+        assertEquals("{bcrypt}stored", user.getPassword());
+        verify(credentialService, never()).encode(any());
+
+        when(credentialService.encode("{bcrypt}other")).thenReturn("{bcrypt}hash");
+        user.setPassword("{bcrypt}other");
+        userService.updateUser(user);
+        assertEquals("{bcrypt}hash", user.getPassword());
+    }
+}
@@ -0,0 +1,115 @@
+package com.demo.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedSessionFileTest {
+    private Path dir;
+    private Path path;
+    private MappedSessionFile file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("demo-sessions-");
+        path = dir.resolve("sessions.dat");
+        file = new MappedSessionFile(path, 4096);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        file.close();
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(dir);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 覆盖写入后读到新值，删除后读不到
+    @Test
+    void testPutGetRemove() throws IOException {
+        file.put("a", Long.MAX_VALUE, bytes("first"));
+        file.put("a", Long.MAX_VALUE, bytes("second"));
+
+        assertArrayEquals(bytes("second"), file.get("a"));
+        assertEquals(1, file.size());
+        assertTrue(file.garbage() > 0);
+
+        assertTrue(file.remove("a"));
+        assertNull(file.get("a"));
+        assertEquals(0, file.size());
+    }
+
+    // 重新打开文件后会话仍然存在，删除的会话不会恢复
+    @Test
+    void testSurvivesReopen() throws IOException {
+        file.put("a", 100, bytes("user a"));
+        file.put("b", 200, bytes("user b"));
+        file.put("a", 300, bytes("user a2"));
+        file.remove("b");
+        file.close();
+
+        file = new MappedSessionFile(path, 4096);
+
+        assertArrayEquals(new String[]{"a"}, file.keys());
+        assertArrayEquals(bytes("user a2"), file.get("a"));
+        assertArrayEquals(new String[]{"a"}, file.expired(300));
+    }
+
+    // 只按索引中的过期时间挑出会话
+    @Test
+    void testExpired() throws IOException {
+        file.put("old", 1000, bytes("x"));
+        file.put("new", 5000, bytes("y"));
+
+        assertArrayEquals(new String[]{"old"}, file.expired(1000));
+        assertEquals(0, file.expired(999).length);
+    }
+
+    // 空间不足时整理掉无效记录，仍然放不下时报错
+    @Test
+    void testCompactWhenFull() throws IOException {
+        byte[] payload = new byte[1000];
+        for (int i = 0; i < 20; i++) {
+            file.put("a", Long.MAX_VALUE, payload);
+        }
+        file.put("b", Long.MAX_VALUE, payload);
+
+        assertEquals(2, file.size());
+        assertArrayEquals(payload, file.get("a"));
+        assertArrayEquals(payload, file.get("b"));
+        assertThrows(IOException.class, () -> file.put("c", Long.MAX_VALUE, new byte[4096]));
+    }
+
+    // 新建的文件只有当前用户可以读写
+    @Test
+    void testCreatedOwnerOnly() throws IOException {
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(path)));
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(dir)));
+    }
+
+    // 目录或文件允许其他用户访问时拒绝打开
+    @Test
+    void testRejectsLoosePermissions() throws IOException {
+        file.close();
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-r--r--"));
+        assertThrows(IOException.class, () -> new MappedSessionFile(path, 4096));
+
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwxrwxrwx"));
+        assertThrows(IOException.class, () -> new MappedSessionFile(path, 4096));
+
+        Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwx------"));
+        file = new MappedSessionFile(path, 4096);
+    }
+}
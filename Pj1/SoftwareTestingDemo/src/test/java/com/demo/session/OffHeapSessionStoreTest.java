@@ -0,0 +1,105 @@
+package com.demo.session;
+
+import com.demo.entity.vo.SessionUser;
+import org.apache.catalina.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class OffHeapSessionStoreTest {
+    private Path dir;
+    private Path path;
+    private OffHeapSessionStore store;
+    private OffHeapSessionManager manager;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("demo-sessions-");
+        path = dir.resolve("sessions.dat");
+        open();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        store.stop();
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(dir);
+    }
+
+    private void open() throws Exception {
+        store = new OffHeapSessionStore(path, 1024 * 1024);
+        manager = new OffHeapSessionManager(store, 30);
+        manager.setContext(mock(Context.class));
+        store.start();
+    }
+
+    private OffHeapSession session(String id, int maxInactiveInterval) {
+        OffHeapSession session = (OffHeapSession) manager.createEmptySession();
+        session.setValid(true);
+        session.setCreationTime(System.currentTimeMillis());
+        session.setMaxInactiveInterval(maxInactiveInterval);
+        session.setId(id, false);
+        return session;
+    }
+
+    // 登录信息写入后重启读回
+    @Test
+    void testSaveAndLoadAfterRestart() throws Exception {
+        SessionUser user = new SessionUser(1, "test", "测试", 0, "1.jpg");
+        OffHeapSession session = session("s1", 1800);
+        session.setAttribute("user", user);
+        session.setAttribute("page", 3);
+        session.setAttribute("history", new ArrayList<>(Arrays.asList("a", "b")));
+        store.save(session);
+        store.stop();
+
+        open();
+        OffHeapSession loaded = (OffHeapSession) store.load("s1");
+
+        assertEquals("s1", loaded.getIdInternal());
+        assertEquals(user, loaded.getAttribute("user"));
+        assertEquals(3, loaded.getAttribute("page"));
+        assertEquals(Arrays.asList("a", "b"), loaded.getAttribute("history"));
+        assertEquals(session.getCreationTime(), loaded.getCreationTime());
+        assertEquals(1800, loaded.getMaxInactiveInterval());
+        assertNull(store.load("missing"));
+    }
+
+    // 登录信息按字段编码，比Java序列化小得多
+    @Test
+    void testCompactPrincipal() throws IOException {
+        SessionUser user = new SessionUser(1, "test", "test", 0, "");
+        OffHeapSession session = session("s1", 1800);
+        session.setAttribute("user", user);
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(user);
+        }
+        assertTrue(SessionCodec.encode(session).length < serialized.size() / 2);
+    }
+
+    // 过期的会话按索引挑出，永不过期的会话不会被挑出
+    @Test
+    void testExpiredKeys() throws IOException {
+        OffHeapSession expired = session("old", 1);
+        expired.setCreationTime(System.currentTimeMillis() - 5000);
+        store.save(expired);
+        store.save(session("forever", -1));
+        store.save(session("fresh", 1800));
+
+        assertArrayEquals(new String[]{"old"}, store.expiredKeys());
+        assertEquals(3, store.getSize());
+    }
+}
@@ -0,0 +1,47 @@
+package com.demo.utils;
+
+import com.demo.entity.vo.KeysetPage;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorUtilTest {
+
+    // 编码后可以还原出各个键
+    @Test
+    void testEncodeDecode() {
+        LocalDateTime time = LocalDateTime.of(2024, 4, 11, 13, 14, 15);
+        String token = CursorUtil.encode(2, time, 15);
+
+        String[] keys = CursorUtil.decode(token, 3);
+
+        assertEquals("2", keys[0]);
+        assertEquals(time, LocalDateTime.parse(keys[1]));
+        assertEquals("15", keys[2]);
+    }
+
+    // 键个数不符或格式错误
+    @Test
+    void testDecodeInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> CursorUtil.decode(CursorUtil.encode(1, 2), 3));
+        assertThrows(IllegalArgumentException.class, () -> CursorUtil.decode("不是游标", 1));
+    }
+
+    // 多取的一条决定是否有下一页
+    @Test
+    void testPage() {
+        List<Integer> rows = Arrays.asList(5, 4, 3);
+
+        KeysetPage<Integer> full = CursorUtil.page(rows, 2, i -> new Object[]{i});
+        assertEquals(Arrays.asList(5, 4), full.getContent());
+        assertEquals("4", CursorUtil.decode(full.getNext(), 1)[0]);
+
+        KeysetPage<Integer> last = CursorUtil.page(rows, 3, i -> new Object[]{i});
+        assertEquals(rows, last.getContent());
+        assertNull(last.getNext());
+    }
+}